@@ -1,5 +1,7 @@
 package com.musicshop;
 
+import com.musicshop.services.storage.StorageFormat;
+
 import java.io.IOException;
 import java.io.InputStream;
 import java.util.Properties;
@@ -39,4 +41,58 @@ public class Config {
         String configAllow = properties.getProperty("allowConfig", "false");
         return Boolean.parseBoolean(configAllow);
     }
+    public static boolean getOrderJournal() {
+        String orderJournal = properties.getProperty("orderJournal", "true");
+        return Boolean.parseBoolean(orderJournal);
+    }
+    // number of journaled orders before they are folded back into orders.json
+    public static int getOrderSnapshotInterval() {
+        String interval = properties.getProperty("orderSnapshotInterval", "100");
+        return Integer.parseInt(interval.trim());
+    }
+    // saves within this window are merged into one write per file, 0 writes immediately
+    public static long getWriteBehindWindowMillis() {
+        String window = properties.getProperty("writeBehindWindowMs", "250");
+        return Long.parseLong(window.trim());
+    }
+    // concurrent saves arriving within this window share one commit
+    public static long getGroupCommitWindowMillis() {
+        String window = properties.getProperty("groupCommitWindowMs", "2");
+        return Long.parseLong(window.trim());
+    }
+    // json or binary, see StorageFormat
+    public static StorageFormat getStorageFormat() {
+        String format = properties.getProperty("storageFormat", "json");
+        return StorageFormat.valueOf(format.trim().toUpperCase());
+    }
+    // analytics-only terminals can read orders from the memory-mapped store
+    public static boolean getMappedAnalytics() {
+        String mappedAnalytics = properties.getProperty("mappedAnalytics", "false");
+        return Boolean.parseBoolean(mappedAnalytics);
+    }
+    // split orders into monthly files under data/orders, see OrderPartitionStore. Opt-in:
+    // the first start with it on migrates orders.json into the partitions (the file is kept)
+    public static boolean getOrderPartitioning() {
+        String orderPartitioning = properties.getProperty("orderPartitioning", "false");
+        return Boolean.parseBoolean(orderPartitioning);
+    }
+    // max number of orders from older monthly partitions kept in memory
+    public static int getOrderPartitionBudget() {
+        String budget = properties.getProperty("orderPartitionBudget", "50000");
+        return Integer.parseInt(budget.trim());
+    }
+    // load inventory, orders, users and work logs concurrently on startup
+    public static boolean getParallelStartup() {
+        String parallelStartup = properties.getProperty("parallelStartup", "true");
+        return Boolean.parseBoolean(parallelStartup);
+    }
+    public static boolean getStartupReport() {
+        String startupReport = properties.getProperty("startupReport", "false");
+        return Boolean.parseBoolean(startupReport);
+    }
+    // number of search results kept by the inventory search cache, 0 disables it
+    public static int getSearchCacheSize() {
+        String size = properties.getProperty("searchCacheSize", "256");
+        return Integer.parseInt(size.trim());
+    }
 }
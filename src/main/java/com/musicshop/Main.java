@@ -3,11 +3,20 @@ package com.musicshop;
 import com.musicshop.services.analytics_dashboard.AnalyticsService;
 import com.musicshop.services.inventory.InventoryService;
 import com.musicshop.services.music.MusicService;
+import com.musicshop.services.order.LazyOrderService;
 import com.musicshop.services.order.OrderService;
+import com.musicshop.services.order.OrderServiceInterface;
 import com.musicshop.services.storage.FileStorageService;
 import com.musicshop.services.user.AuthenticationService;
 import com.musicshop.services.user.UserService;
 
+import java.io.IOException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
 public class Main {
     public static void main(String[] args) {
         // config read
@@ -20,14 +29,43 @@ public class Main {
         System.out.println("Application started in " + startMode + " mode.");
 
         // Init services
-        FileStorageService fileStorageService = new FileStorageService();
-        InventoryService inventoryService = new InventoryService(fileStorageService);
+        StartupTimer timer = new StartupTimer();
+        FileStorageService fileStorageService = timer.time("storage", FileStorageService::new);
+        // pending write-behind saves must reach disk even on Ctrl+C
+        Runtime.getRuntime().addShutdownHook(new Thread(fileStorageService::flush));
+
+        InventoryService inventoryService;
+        OrderServiceInterface orderService;
+        UserService userService;
+        AuthenticationService.WorkLogService workLogService;
+        // the four datasets are independent, so in parallel mode they load side by side
+        // on virtual threads; sequential mode runs the same steps one after another
+        boolean parallelStartup = Config.getParallelStartup();
+        try (ExecutorService executor = parallelStartup
+                ? Executors.newVirtualThreadPerTaskExecutor()
+                : Executors.newSingleThreadExecutor()) {
+            Future<InventoryService> inventory = executor.submit(() -> timer.time("inventory", () -> new InventoryService(fileStorageService)));
+            // with mapped analytics the history is read from the mapped store, so Order objects
+            // are only loaded once a menu asks for orders
+            Future<OrderServiceInterface> orders = Config.getMappedAnalytics()
+                    ? CompletableFuture.completedFuture(new LazyOrderService(() -> new OrderService(fileStorageService)))
+                    : executor.submit(() -> timer.time("orders", () -> new OrderService(fileStorageService)));
+            Future<UserService> users = executor.submit(() -> timer.time("users", () -> new UserService(fileStorageService)));
+            Future<AuthenticationService.WorkLogService> workLogs = executor.submit(() -> timer.time("worklogs", () -> new AuthenticationService.WorkLogService(fileStorageService)));
+            inventoryService = awaitStartup(inventory);
+            orderService = awaitStartup(orders);
+            userService = awaitStartup(users);
+            workLogService = awaitStartup(workLogs);
+        }
+
+        // wire services once their data is ready
         MusicService musicService = new MusicService(inventoryService);
-        OrderService orderService = new OrderService(fileStorageService);
-        UserService userService = new UserService(fileStorageService);
         AuthenticationService authService = new AuthenticationService(userService);
-        AuthenticationService.WorkLogService workLogService = new AuthenticationService.WorkLogService(fileStorageService);
-        AnalyticsService analyticsService = new AnalyticsService(orderService, inventoryService);
+        AnalyticsService analyticsService = timer.time("analytics",
+                () -> createAnalyticsService(fileStorageService, orderService, inventoryService));
+        if (Config.getStartupReport()) {
+            timer.printReport(parallelStartup ? "parallel" : "sequential");
+        }
 
         // Init MainMenu with all services
         MainMenu mainMenu = new MainMenu(
@@ -60,4 +98,32 @@ public class Main {
         // start app
         mainMenu.start();
     }
+
+    // unwraps a failed load so startup fails with the original error
+    private static <T> T awaitStartup(Future<T> service) {
+        try {
+            return service.get();
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw new IllegalStateException("Startup failed", e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Startup interrupted", e);
+        }
+    }
+
+    private static AnalyticsService createAnalyticsService(FileStorageService fileStorageService,
+                                                           OrderServiceInterface orderService,
+                                                           InventoryService inventoryService) {
+        if (Config.getMappedAnalytics()) {
+            try {
+                return new AnalyticsService(orderService, inventoryService, fileStorageService.openMappedOrders());
+            } catch (IOException e) {
+                System.out.println("Could not open mapped order store, falling back to in-memory orders: " + e.getMessage());
+            }
+        }
+        return new AnalyticsService(orderService, inventoryService);
+    }
 }
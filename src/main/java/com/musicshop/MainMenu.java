@@ -1,9 +1,14 @@
 package com.musicshop;
 
 import com.musicshop.models.music.Album;
+import com.musicshop.models.music.CompletionRank;
 import com.musicshop.models.music.Instrument;
 import com.musicshop.models.music.MusicItem;
 import com.musicshop.models.music.SearchCriteria;
+import com.musicshop.models.music.SearchPage;
+import com.musicshop.models.music.SearchPageRequest;
+import com.musicshop.models.music.SearchSort;
+import com.musicshop.models.sales.CartLine;
 import com.musicshop.models.sales.Order;
 import com.musicshop.models.sales.SalesReport;
 import com.musicshop.models.user.Customer;
@@ -12,7 +17,10 @@ import com.musicshop.models.user.UserRole;
 import com.musicshop.exceptions.*;
 import com.musicshop.services.analytics_dashboard.AnalyticsService;
 import com.musicshop.services.analytics_dashboard.ReportExportService;
+import com.musicshop.services.inventory.ImportReport;
+import com.musicshop.services.inventory.InventoryFacets;
 import com.musicshop.services.inventory.InventoryService;
+import com.musicshop.services.inventory.StockReservation;
 import com.musicshop.services.music.MusicService;
 import com.musicshop.services.order.OrderServiceInterface;
 import com.musicshop.services.storage.FileStorageService;
@@ -20,13 +28,20 @@ import com.musicshop.services.user.AuthenticationService;
 import com.musicshop.services.user.UserService;
 
 import java.io.IOException;
+import java.nio.file.InvalidPathException;
+import java.nio.file.Path;
 import java.time.Duration;
 import java.time.format.DateTimeFormatter;
 import java.util.*;
+import java.util.stream.Collectors;
 import java.time.LocalDateTime;
 import java.io.Console;
 
 public class MainMenu {
+    private static final int SEARCH_PAGE_SIZE = 20;
+    private static final int MAX_TYPO_DISTANCE = 2; // edits allowed in "did you mean" hints
+    private static final int ORDER_COMPLETIONS = 10; // products listed per cart search
+
     private final MusicService musicService;
     private final InventoryService inventoryService;
     private final OrderServiceInterface orderService;
@@ -75,6 +90,7 @@ public class MainMenu {
             if (authService.isAuthenticated()) {
                 logout();
             }
+            fileStorageService.flush();
         }
     }
 
@@ -171,6 +187,7 @@ public class MainMenu {
         System.out.println("6. View Orders");
         System.out.println("7. Edit Item");
         System.out.println("8. View My Work Hours");
+        System.out.println("9. Import Delivery");
         System.out.println("0. Logout");
 
         int choice = getUserChoice();
@@ -183,6 +200,7 @@ public class MainMenu {
             case 6 -> viewOrders();
             case 7 -> editItem();
             case 8 -> viewMyWorkHours();
+            case 9 -> importDelivery();
             case 0 -> logout();
             default -> System.out.println("Invalid option. Please try again.");
         }
@@ -304,6 +322,7 @@ public class MainMenu {
         MusicItem item = inventoryService.findItemByName(itemName);
         if (item == null) {
             System.out.println("Item not found in inventory.");
+            suggestSimilarNames(itemName);
             return;
         }
 
@@ -326,7 +345,7 @@ public class MainMenu {
                 case 1 -> {
                     System.out.print("Enter new name: ");
                     String newName = scanner.nextLine();
-                    item.setName(newName);
+                    inventoryService.updateItem(item, edited -> edited.setName(newName));
                     System.out.println("Name updated to: " + newName);
                 }
                 case 2 -> {
@@ -335,7 +354,7 @@ public class MainMenu {
                         double newPrice = scanner.nextDouble();
                         scanner.nextLine(); // Consume newline
                         if (newPrice > 0) {
-                            item.setPrice(newPrice);
+                            inventoryService.updateItem(item, edited -> edited.setPrice(newPrice));
                             System.out.println("Price updated to: $" + newPrice);
                         } else {
                             System.out.println("Invalid price. Price must be greater than zero.");
@@ -351,7 +370,7 @@ public class MainMenu {
                         int newQuantity = getUserChoice();
                         scanner.nextLine(); // Consume newline
                         if (newQuantity > 0) {
-                            item.setQuantity(newQuantity);
+                            inventoryService.updateItem(item, edited -> edited.setQuantity(newQuantity));
                             System.out.println("Quantity updated to: " + newQuantity);
                         } else {
                             System.out.println("Invalid quantity. Quantity must be greater than zero.");
@@ -371,6 +390,22 @@ public class MainMenu {
         }
     }
 
+    // Receives a supplier manifest (CSV with a header, or JSON lines) in one go
+    private void importDelivery() {
+        System.out.print("Enter path of the delivery file (CSV or JSON lines): ");
+        String path = scanner.nextLine().trim();
+        try {
+            ImportReport report = inventoryService.importItems(Path.of(path));
+            System.out.println(report);
+            report.getErrors().stream().limit(20).forEach(error -> System.out.println("  " + error));
+            if (report.getErrors().size() > 20) {
+                System.out.println("  ... and " + (report.getErrors().size() - 20) + " more");
+            }
+        } catch (IOException | InvalidPathException e) {
+            System.out.println("Could not import " + path + ": " + e.getMessage());
+        }
+    }
+
     public void removeItem() {
         // Ask the user for the name or barcode of the item to remove
         Scanner scanner = new Scanner(System.in);
@@ -384,35 +419,60 @@ public class MainMenu {
 
         // If not found by name, try finding by barcode
         if (itemToRemove == null) {
-            itemToRemove = inventoryService.getItems().stream()
-                    .filter(item -> item.getBarcode().equals(input))
-                    .findFirst()
-                    .orElse(null);
+            itemToRemove = inventoryService.findItemByBarcode(input);
         }
 
         // If item is found, remove it and save the updated inventory
-        if (itemToRemove != null) {
-            // Remove the item directly from the inventory list in the service
-            inventoryService.getInventory().remove(itemToRemove);
-            inventoryService.saveItemsInInventory(); // Save after removal
+        if (inventoryService.removeItem(itemToRemove)) {
             System.out.println("Item '" + itemToRemove.getName() + "' has been removed from the inventory.");
         } else {
             System.out.println("Item not found in the inventory.");
+            suggestSimilarNames(input);
+        }
+    }
+
+    // "Did you mean" hint for a mistyped or partly typed name
+    private void suggestSimilarNames(String name) {
+        List<MusicItem> similar = inventoryService.findSimilarItems(name, MAX_TYPO_DISTANCE, 3);
+        if (similar.isEmpty()) {
+            similar = inventoryService.autocomplete(name, 3, CompletionRank.STOCK);
+        }
+        if (!similar.isEmpty()) {
+            System.out.println("Did you mean: " + similar.stream()
+                    .map(MusicItem::getName)
+                    .collect(Collectors.joining(", ")) + "?");
         }
     }
 
     public void removeItem(MusicItem item) {
         // If the item is found, remove it from the inventory
-        if (item != null) {
-            // Remove the item directly from the inventory list in the service
-            inventoryService.getInventory().remove(item);
-            inventoryService.saveItemsInInventory(); // Save after removal
+        if (inventoryService.removeItem(item)) {
             System.out.println("Item '" + item.getName() + "' has been removed from the inventory.");
         } else {
             System.out.println("Item not found in the inventory.");
         }
     }
 
+    // A year, or null when skipped; re-prompts until the input is a year not before notBefore
+    private Integer readOptionalYear(String prompt, Integer notBefore) {
+        while (true) {
+            System.out.print(prompt);
+            String input = scanner.nextLine().trim();
+            if (input.isEmpty()) {
+                return null;
+            }
+            try {
+                int year = Integer.parseInt(input);
+                if (notBefore == null || year >= notBefore) {
+                    return year;
+                }
+                System.out.println("The latest year cannot be before the earliest year.");
+            } catch (NumberFormatException e) {
+                System.out.println("Invalid year. Please enter a number such as 1969.");
+            }
+        }
+    }
+
     private void searchInventory() {
         System.out.println("\n=== Advanced Search ===");
 
@@ -474,6 +534,18 @@ public class MainMenu {
             default -> null;  // Reset to re-prompt
         };
 
+        // Album filters, skipped when searching instruments only
+        String artist = null;
+        Integer minYear = null;
+        Integer maxYear = null;
+        if (!"Instrument".equals(itemType)) {
+            System.out.print("Enter album artist (or press Enter to skip): ");
+            artist = scanner.nextLine().trim();
+            artist = artist.isEmpty() ? null : artist;
+            minYear = readOptionalYear("Enter earliest release year (or press Enter to skip): ", null);
+            maxYear = readOptionalYear("Enter latest release year (or press Enter to skip): ", minYear);
+        }
+
         // In-stock status selection with validation
         System.out.println("Show in-stock items only?");
         System.out.println("1. Yes");
@@ -486,52 +558,61 @@ public class MainMenu {
             default -> null;
         };
 
-        // Build search criteria and perform search
-        SearchCriteria criteria = new SearchCriteria(keyword, minPrice, maxPrice, itemType, inStock);
-        List<MusicItem> results = inventoryService.searchItems(criteria);
+        // Ask the user how they want to sort the results, the sort is part of the query
+        System.out.println("\nHow would you like to sort the results?");
+        System.out.println("1. By type");
+        System.out.println("2. By name");
+        System.out.println("3. By price");
+        int sortChoice = getUserChoice();
+        SearchSort sort = switch (sortChoice) {
+            case 1 -> SearchSort.TYPE;
+            case 2 -> SearchSort.NAME;
+            case 3 -> SearchSort.PRICE;
+            default -> {
+                System.out.println("Invalid choice. No sorting applied.");
+                yield null;
+            }
+        };
+        boolean descending = false;
+        if (sort != null) {
+            System.out.println("1. Ascending");
+            System.out.println("2. Descending");
+            descending = getUserChoice() == 2;
+        }
 
-        // Display search results
-        if (results.isEmpty()) {
+        // Build search criteria and show the results a page at a time
+        SearchCriteria criteria = new SearchCriteria(keyword, minPrice, maxPrice, itemType, inStock, artist, minYear, maxYear);
+        SearchPageRequest request = SearchPageRequest.first(sort, descending, SEARCH_PAGE_SIZE);
+        SearchPage page = inventoryService.searchItems(criteria, request);
+        if (page.getItems().isEmpty()) {
             System.out.println("No items found matching your criteria.");
-        } else {
-            //System.out.println("\n=== Search Results ===");
-            //results.forEach(System.out::println);
-
-            // Ask the user how they want to sort the results
-            System.out.println("\nHow would you like to sort the results?");
-            System.out.println("1. By type");
-            System.out.println("2. By name");
-            System.out.println("3. By price");
-            int sortChoice = getUserChoice();
+            return;
+        }
 
-            switch (sortChoice) {
-                case 1:
-                    // Sort by type
-                    results.sort(Comparator.comparing(MusicItem::getType));
-                    break;
-                case 2:
-                    // Sort by name
-                    results.sort(Comparator.comparing(MusicItem::getName));
-                    break;
-                case 3:
-                    // Sort by price
-                    results.sort(Comparator.comparing(MusicItem::getPrice));
-                    break;
-                default:
-                    System.out.println("Invalid choice. No sorting applied.");
+        System.out.println("\n=== Search Results ===");
+        while (true) {
+            page.getItems().forEach(System.out::println);
+            if (!page.hasNext()) {
+                break;
             }
-
-            // Display the sorted results
-            System.out.println("\n=== Sorted Results ===");
-            results.forEach(System.out::println);
+            System.out.print("Press Enter for more results, or type q to stop: ");
+            if (scanner.nextLine().trim().equalsIgnoreCase("q")) {
+                break;
+            }
+            request = request.next(page);
+            page = inventoryService.searchItems(criteria, request);
         }
     }
 
     private void viewInventoryStatus() {
-        Map<String, Integer> status = analyticsService.getInventoryStatus();
+        InventoryFacets facets = analyticsService.getInventoryFacets();
         System.out.println("\n=== Inventory Status ===");
-        status.forEach((type, count) ->
-                System.out.println(type + ": " + count + " items"));
+        facets.skusByType().forEach((type, skus) ->
+                System.out.println(type.name().charAt(0) + type.name().substring(1).toLowerCase() + "s: "
+                        + skus + " items, " + facets.getUnits(type) + " units"));
+        System.out.println("In stock: " + facets.inStockSkus() + " items, out of stock: " + facets.outOfStockSkus() + " items");
+        System.out.println("By price:");
+        facets.skusByPriceBucket().forEach((bucket, skus) -> System.out.println("  " + bucket + ": " + skus + " items"));
     }
 
 
@@ -575,23 +656,39 @@ public class MainMenu {
         Customer customer = new Customer(customerId, customerName);
         Order order = new Order(customer);
 
+        List<StockReservation> reservations = new ArrayList<>();
         boolean addingItems = true;
         while (addingItems) {
-            System.out.println("Choose product to add to cart:");
-            List<MusicItem> items = inventoryService.getItems();
+            System.out.print("Type the start of a product name or artist (or press Enter to finish): ");
+            String prefix = scanner.nextLine();
+            if (prefix.isBlank()) {
+                addingItems = false;
+                continue;
+            }
+            // best sellers first, so the usual picks are at the top
+            List<MusicItem> items = inventoryService.autocomplete(prefix, ORDER_COMPLETIONS, CompletionRank.SALES);
+            if (items.isEmpty()) {
+                System.out.println("No products start with \"" + prefix.trim() + "\".");
+                suggestSimilarNames(prefix);
+                continue;
+            }
             for (int i = 0; i < items.size(); i++) {
-                System.out.println((i + 1) + ". " + items.get(i).getName() + " - $" + items.get(i).getPrice());
+                MusicItem item = items.get(i);
+                System.out.println((i + 1) + ". " + item.getName() + " - $" + item.getPrice() + " (" + item.getQuantity() + " in stock)");
             }
-            System.out.print("Select product number (or 0 to finish): ");
+            System.out.print("Select product number (or 0 to search again): ");
             int productChoice = getUserChoice();
-            if (productChoice == 0) {
-                addingItems = false;
-            } else if (productChoice > 0 && productChoice <= items.size()) {
+            if (productChoice > 0 && productChoice <= items.size()) {
                 MusicItem item = items.get(productChoice - 1);
-                removeItem(item);// remove item from inventory
-                order.addItem(item);
-                System.out.println(item.getName() + " added to cart.");
-            } else {
+                StockReservation reservation = inventoryService.reserve(item, 1); // hold one unit for the cart
+                if (reservation == null) {
+                    System.out.println(item.getName() + " is out of stock.");
+                } else {
+                    reservations.add(reservation);
+                    order.addItem(item);
+                    System.out.println(item.getName() + " added to cart.");
+                }
+            } else if (productChoice != 0) {
                 System.out.println("Invalid selection.");
             }
         }
@@ -600,8 +697,10 @@ public class MainMenu {
 
         if (currentEmployeeProcessingOrder != null) {
             orderService.processOrder(order, currentEmployeeProcessingOrder);
+            reservations.forEach(inventoryService::commit);
             System.out.println("Order processed and saved successfully.");
         } else {
+            reservations.forEach(inventoryService::release); // back on the shelf
             System.out.println("Error: No authenticated user to process the order.");
         }
     }
@@ -612,7 +711,19 @@ public class MainMenu {
             System.out.println("No orders found.");
         } else {
             System.out.println("\n--- Order List ---");
-            orders.forEach(System.out::println);
+            orders.forEach(order -> {
+                System.out.println(order);
+                printCatalogDetails(order);
+            });
+        }
+    }
+
+    // Cart lines only reference what was sold; show each item as the catalog has it now
+    private void printCatalogDetails(Order order) {
+        System.out.println("In Catalog Now:");
+        for (CartLine line : order.getCartLines()) {
+            MusicItem item = inventoryService.resolveCartLine(line);
+            System.out.println("  - " + (item != null ? item : line.getName() + " (no longer stocked)"));
         }
     }
 
@@ -752,9 +863,9 @@ public class MainMenu {
         Map<String, Long> soldItems = new HashMap<>();
 
         // Calculate the sold quantities from orders
-        orders.forEach(order -> order.getCartItems().forEach(item -> {
-            String itemName = item.getName();
-            int quantitySold = item.getQuantity(); // Get the sold quantity directly from the MusicItem
+        orders.forEach(order -> order.getCartLines().forEach(line -> {
+            String itemName = line.getName();
+            int quantitySold = line.getQuantity();
 
             // Update the sold quantities for each item
             soldItems.put(itemName, soldItems.getOrDefault(itemName, 0L) + quantitySold);
@@ -935,5 +1046,6 @@ public class MainMenu {
         System.out.println("Total Users: " + userService.getAllUsers().size());
         System.out.println("Total Items in Inventory: " + inventoryService.getItems().size());
         System.out.println("Total Orders: " + orderService.getAllOrders().size());
+        System.out.println("Search Cache: " + inventoryService.getSearchCacheStats());
     }
 }
\ No newline at end of file
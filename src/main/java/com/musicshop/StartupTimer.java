@@ -0,0 +1,33 @@
+package com.musicshop;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Supplier;
+
+// Records how long each startup phase took; phases may run on different threads
+public class StartupTimer {
+    private final long startNanos = System.nanoTime();
+    private final Map<String, Long> phaseNanos = new LinkedHashMap<>();
+
+    public <T> T time(String phase, Supplier<T> step) {
+        long start = System.nanoTime();
+        try {
+            return step.get();
+        } finally {
+            record(phase, System.nanoTime() - start);
+        }
+    }
+
+    private synchronized void record(String phase, long nanos) {
+        phaseNanos.put(phase, nanos);
+    }
+
+    public synchronized void printReport(String mode) {
+        long totalNanos = System.nanoTime() - startNanos;
+        System.out.println("\n--- Startup Timing (" + mode + ") ---");
+        phaseNanos.forEach((phase, nanos) ->
+                System.out.printf("%-12s %8.1f ms%n", phase, nanos / 1_000_000.0));
+        // with parallel loading the total is less than the sum of the phases
+        System.out.printf("%-12s %8.1f ms%n", "total", totalNanos / 1_000_000.0);
+    }
+}
@@ -1,10 +1,16 @@
 package com.musicshop.models.music;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
+
+import java.util.Locale;
+
 public class Album extends MusicItem {
     private String artist;
     private final String type;
     private int year;
 
+    private transient String foldedArtist; // lower-cased artist for searches
+
     // default constructor is required for json
     public Album() {
         super(null, 0.0);
@@ -25,8 +31,18 @@ public class Album extends MusicItem {
 
     @Override
     public String getType() { return type; }
+    @Override
+    public MusicItemType getItemType() { return MusicItemType.ALBUM; }
     public String getArtist() { return artist; }
     public int getYear() { return year; }
+
+    @JsonIgnore
+    public String getFoldedArtist() {
+        if (foldedArtist == null && artist != null) {
+            foldedArtist = artist.toLowerCase(Locale.ROOT);
+        }
+        return foldedArtist;
+    }
     @Override
     public String toString() { return super.toString() + ", Artist: " + artist + ", Year: " + year; }
 }
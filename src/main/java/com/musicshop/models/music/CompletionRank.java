@@ -0,0 +1,7 @@
+package com.musicshop.models.music;
+
+// How autocomplete orders the items matching a prefix, best first
+public enum CompletionRank {
+    STOCK,  // most units on the shelf
+    SALES   // most units sold since startup
+}
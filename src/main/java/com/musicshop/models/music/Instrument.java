@@ -22,5 +22,7 @@ public class Instrument extends MusicItem {
     @Override
     public String getType() { return type; }
     @Override
+    public MusicItemType getItemType() { return MusicItemType.INSTRUMENT; }
+    @Override
     public String toString() { return super.toString() + ", Type: " + type; }
 }
@@ -4,6 +4,9 @@ import com.fasterxml.jackson.annotation.JsonTypeInfo;
 import com.fasterxml.jackson.annotation.JsonSubTypes;
 import com.fasterxml.jackson.annotation.JsonIgnore;
 
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicInteger;
+
 @JsonTypeInfo(
     use = JsonTypeInfo.Id.NAME,
     include = JsonTypeInfo.As.PROPERTY,
@@ -17,10 +20,13 @@ import com.fasterxml.jackson.annotation.JsonIgnore;
 public abstract class MusicItem {
     protected String name;
     protected double price;
-    protected int quantity;
+    // atomic so concurrent sales can't both take the last unit, see tryDecreaseQuantity
+    private final AtomicInteger quantity = new AtomicInteger();
 
     protected String barcode;
 
+    private transient String foldedName; // lower-cased name for searches, reset by setName
+
     // default constructor is required for json
     public MusicItem() { }
 
@@ -32,11 +38,22 @@ public abstract class MusicItem {
     public MusicItem(String name, double price, int quantity) {
         this.name = name;
         this.price = price;
-        this.quantity = quantity;
+        this.quantity.set(quantity);
     }
 
     public String getName() { return name; }
-    public void setName(String name) { this.name = name; }
+    public void setName(String name) {
+        this.name = name;
+        this.foldedName = null;
+    }
+
+    @JsonIgnore
+    public String getFoldedName() {
+        if (foldedName == null && name != null) {
+            foldedName = name.toLowerCase(Locale.ROOT);
+        }
+        return foldedName;
+    }
 
     public double getPrice() { return price; }
     public void setPrice(double price) { this.price = price; }
@@ -44,16 +61,32 @@ public abstract class MusicItem {
     public String getBarcode() { return barcode; }
     public void setBarcode(String barcode) { this.barcode = barcode; }
 
-    public int getQuantity() { return quantity; }
-    public void setQuantity(int quantity) { this.quantity = quantity; }
+    public int getQuantity() { return quantity.get(); }
+    public void setQuantity(int quantity) { this.quantity.set(quantity); }
+
+    public void increaseQuantity(int amount) { quantity.addAndGet(amount); }
 
-    public void increaseQuantity(int amount) { this.quantity += amount; }
+    // Takes amount units if that many are left, otherwise leaves the quantity alone
+    public boolean tryDecreaseQuantity(int amount) {
+        int current;
+        do {
+            current = quantity.get();
+            if (current < amount) {
+                return false;
+            }
+        } while (!quantity.compareAndSet(current, current - amount));
+        return true;
+    }
 
 
     @Override
     public String toString() {
-        return "Name: " + name + ", Price: $" + price + ", Quantity: " + quantity;
+        return "Name: " + name + ", Price: $" + price + ", Quantity: " + quantity.get();
     }
 
     public abstract String getType();
+
+    // null for kinds outside MusicItemType
+    @JsonIgnore
+    public MusicItemType getItemType() { return null; }
 }
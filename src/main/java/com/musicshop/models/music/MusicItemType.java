@@ -0,0 +1,17 @@
+package com.musicshop.models.music;
+
+// The kinds of items the shop sells, for matching without reflection
+public enum MusicItemType {
+    ALBUM,
+    INSTRUMENT;
+
+    // Search criteria name kinds like the classes, e.g. "Album"; null for an unknown kind
+    public static MusicItemType fromName(String name) {
+        for (MusicItemType type : values()) {
+            if (type.name().equalsIgnoreCase(name)) {
+                return type;
+            }
+        }
+        return null;
+    }
+}
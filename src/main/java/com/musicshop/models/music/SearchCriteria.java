@@ -1,20 +1,37 @@
 // Add to models/SearchCriteria.java
 package com.musicshop.models.music;
 
+import java.util.Locale;
+import java.util.Objects;
+
+// Equal criteria select the same items: text is compared the way searches match it,
+// so "Album" and "album" are one cached search
 public class SearchCriteria {
-    private String keyword;
-    private Double minPrice;
-    private Double maxPrice;
-    private String itemType;
-    private Boolean inStock;
+    private final String keyword;
+    private final Double minPrice;
+    private final Double maxPrice;
+    private final String itemType;
+    private final Boolean inStock;
+    // album-only filters: an exact artist (ignoring case) and a release year range
+    private final String artist;
+    private final Integer minYear;
+    private final Integer maxYear;
 
     public SearchCriteria(String keyword, Double minPrice, Double maxPrice,
                           String itemType, Boolean inStock) {
+        this(keyword, minPrice, maxPrice, itemType, inStock, null, null, null);
+    }
+
+    public SearchCriteria(String keyword, Double minPrice, Double maxPrice, String itemType, Boolean inStock,
+                          String artist, Integer minYear, Integer maxYear) {
         this.keyword = keyword;
         this.minPrice = minPrice;
         this.maxPrice = maxPrice;
         this.itemType = itemType;
         this.inStock = inStock;
+        this.artist = artist;
+        this.minYear = minYear;
+        this.maxYear = maxYear;
     }
 
     public String getKeyword() { return keyword; }
@@ -22,4 +39,41 @@ public class SearchCriteria {
     public Double getMaxPrice() { return maxPrice; }
     public String getItemType() { return itemType; }
     public Boolean getInStock() { return inStock; }
+    public String getArtist() { return artist; }
+    public Integer getMinYear() { return minYear; }
+    public Integer getMaxYear() { return maxYear; }
+
+    // The same criteria matching items in and out of stock
+    public SearchCriteria withoutStockFilter() {
+        return new SearchCriteria(keyword, minPrice, maxPrice, itemType, null, artist, minYear, maxYear);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof SearchCriteria other)) return false;
+        return Objects.equals(lowerCase(keyword), lowerCase(other.keyword))
+                && Objects.equals(minPrice, other.minPrice)
+                && Objects.equals(maxPrice, other.maxPrice)
+                && Objects.equals(lowerCase(itemType), lowerCase(other.itemType))
+                && Objects.equals(inStock, other.inStock)
+                && Objects.equals(foldedArtist(), other.foldedArtist())
+                && Objects.equals(minYear, other.minYear)
+                && Objects.equals(maxYear, other.maxYear);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(lowerCase(keyword), minPrice, maxPrice, lowerCase(itemType), inStock, foldedArtist(),
+                minYear, maxYear);
+    }
+
+    // keywords and types match case-insensitively, artists also ignore surrounding spaces
+    private static String lowerCase(String text) {
+        return text != null ? text.toLowerCase(Locale.ROOT) : null;
+    }
+
+    private String foldedArtist() {
+        return artist != null ? artist.trim().toLowerCase(Locale.ROOT) : null;
+    }
 }
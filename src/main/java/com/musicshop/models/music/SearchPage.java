@@ -0,0 +1,18 @@
+package com.musicshop.models.music;
+
+import java.util.List;
+
+// One page of search results
+public class SearchPage {
+    private final List<MusicItem> items;
+    private final int nextCursor; // -1 on the last page
+
+    public SearchPage(List<MusicItem> items, int nextCursor) {
+        this.items = items;
+        this.nextCursor = nextCursor;
+    }
+
+    public List<MusicItem> getItems() { return items; }
+    public int getNextCursor() { return nextCursor; }
+    public boolean hasNext() { return nextCursor >= 0; }
+}
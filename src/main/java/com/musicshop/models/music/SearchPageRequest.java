@@ -0,0 +1,33 @@
+package com.musicshop.models.music;
+
+// Which page of a search to return: sort order, page size and a cursor,
+// the cursor being the number of matches on the pages before it
+public class SearchPageRequest {
+    private final SearchSort sort;      // null keeps the search's own order
+    private final boolean descending;
+    private final int pageSize;
+    private final int cursor;
+
+    public SearchPageRequest(SearchSort sort, boolean descending, int pageSize, int cursor) {
+        if (pageSize <= 0 || cursor < 0) {
+            throw new IllegalArgumentException("Page size must be positive and cursor not negative");
+        }
+        this.sort = sort;
+        this.descending = descending;
+        this.pageSize = pageSize;
+        this.cursor = cursor;
+    }
+
+    public static SearchPageRequest first(SearchSort sort, boolean descending, int pageSize) {
+        return new SearchPageRequest(sort, descending, pageSize, 0);
+    }
+
+    public SearchSort getSort() { return sort; }
+    public boolean isDescending() { return descending; }
+    public int getPageSize() { return pageSize; }
+    public int getCursor() { return cursor; }
+
+    public SearchPageRequest next(SearchPage page) {
+        return new SearchPageRequest(sort, descending, pageSize, page.getNextCursor());
+    }
+}
@@ -0,0 +1,25 @@
+package com.musicshop.models.music;
+
+import java.util.Comparator;
+
+// Sort keys for paged searches
+public enum SearchSort {
+    TYPE(Comparator.comparing(MusicItem::getType, Comparator.nullsFirst(Comparator.naturalOrder()))),
+    NAME(Comparator.comparing(MusicItem::getFoldedName, Comparator.nullsFirst(Comparator.naturalOrder()))),
+    PRICE(Comparator.comparingDouble(MusicItem::getPrice));
+
+    private final Comparator<MusicItem> comparator;
+
+    SearchSort(Comparator<MusicItem> comparator) {
+        this.comparator = comparator;
+    }
+
+    // Ties are broken by barcode and then by name, so every run orders equal
+    // keys the same way and pages don't overlap or skip items
+    public Comparator<MusicItem> comparator(boolean descending) {
+        Comparator<MusicItem> order = descending ? comparator.reversed() : comparator;
+        return order
+                .thenComparing(MusicItem::getBarcode, Comparator.nullsLast(Comparator.naturalOrder()))
+                .thenComparing(MusicItem::getFoldedName, Comparator.nullsFirst(Comparator.naturalOrder()));
+    }
+}
@@ -0,0 +1,69 @@
+package com.musicshop.models.sales;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.musicshop.models.music.MusicItem;
+
+import java.util.Objects;
+
+// One line of an order: a reference to a catalog item plus what was charged for it.
+// Name and type are kept so the line still reads correctly once the item has
+// left the inventory; everything else resolves through the inventory.
+public class CartLine {
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private String sku;        // catalog barcode; items without one are referenced by name
+    private String name;
+    private String type;
+    private double unitPrice;  // price at the time of sale
+    private int quantity;
+
+    // default constructor is required for json
+    public CartLine() { }
+
+    public CartLine(String sku, String name, String type, double unitPrice, int quantity) {
+        this.sku = sku;
+        this.name = name;
+        this.type = type;
+        this.unitPrice = unitPrice;
+        this.quantity = quantity;
+    }
+
+    public static CartLine of(MusicItem item) {
+        return new CartLine(item.getBarcode(), item.getName(), item.getType(), item.getPrice(), 1);
+    }
+
+    // Whether this line refers to the given catalog item
+    public boolean refersTo(MusicItem item) {
+        return sku != null ? sku.equals(item.getBarcode()) : item.getBarcode() == null && item.getName().equals(name);
+    }
+
+    // A second unit of the same item at the same price goes on the same line
+    public boolean matches(MusicItem item) {
+        return refersTo(item) && item.getPrice() == unitPrice && Objects.equals(item.getName(), name);
+    }
+
+    public String getSku() { return sku; }
+    public void setSku(String sku) { this.sku = sku; }
+
+    public String getName() { return name; }
+    public void setName(String name) { this.name = name; }
+
+    public String getType() { return type; }
+    public void setType(String type) { this.type = type; }
+
+    public double getUnitPrice() { return unitPrice; }
+    public void setUnitPrice(double unitPrice) { this.unitPrice = unitPrice; }
+
+    public int getQuantity() { return quantity; }
+    public void setQuantity(int quantity) { this.quantity = quantity; }
+
+    public void increaseQuantity(int amount) { this.quantity += amount; }
+
+    @JsonIgnore
+    public double getLineTotal() { return unitPrice * quantity; }
+
+    @Override
+    public String toString() {
+        return name + " x" + quantity + " (Price: $" + unitPrice + ", Type: " + type + ")";
+    }
+}
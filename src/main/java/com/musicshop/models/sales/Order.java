@@ -1,5 +1,6 @@
 package com.musicshop.models.sales;
 
+import com.fasterxml.jackson.annotation.JsonProperty;
 import com.musicshop.models.music.MusicItem;
 import com.musicshop.models.user.Customer;
 import com.musicshop.models.sales.OrderStatuses;
@@ -12,7 +13,7 @@ import java.util.UUID;
 public class Order {
     private String orderId;
     private Customer customer;
-    private List<MusicItem> cartItems;
+    private List<CartLine> cartLines;
     private double totalAmount;
     private LocalDateTime orderDate;
     private String processedById;  // User ID of the employee who processed the order
@@ -25,19 +26,26 @@ public class Order {
     public Order(Customer customer) {
         this.orderId = "ORD-" + UUID.randomUUID();
         this.customer = customer;
-        this.cartItems = new ArrayList<>();
+        this.cartLines = new ArrayList<>();
         this.totalAmount = 0.0;
         this.orderDate = LocalDateTime.now();
         this.status = OrderStatuses.PENDING;
     }
 
     public void addItem(MusicItem item) {
-        this.cartItems.add(item);
+        addLine(item);
         this.totalAmount = calculateTotalAmount();
     }
 
+    private void addLine(MusicItem item) {
+        cartLines.stream()
+                .filter(line -> line.matches(item))
+                .findFirst()
+                .ifPresentOrElse(line -> line.increaseQuantity(1), () -> cartLines.add(CartLine.of(item)));
+    }
+
     private double calculateTotalAmount() {
-        return cartItems.stream().mapToDouble(MusicItem::getPrice).sum();
+        return cartLines.stream().mapToDouble(CartLine::getLineTotal).sum();
     }
 
     // Getters and setters
@@ -47,8 +55,16 @@ public class Order {
     public Customer getCustomer() { return customer; }
     public void setCustomer(Customer customer) { this.customer = customer; }
 
-    public List<MusicItem> getCartItems() { return cartItems; }
-    public void setCartItems(List<MusicItem> cartItems) { this.cartItems = cartItems; }
+    public List<CartLine> getCartLines() { return cartLines; }
+    public void setCartLines(List<CartLine> cartLines) { this.cartLines = cartLines; }
+
+    // Older order files stored a full MusicItem copy per unit sold; fold them into lines.
+    // The stored totalAmount is kept as is.
+    @JsonProperty("cartItems")
+    private void setLegacyCartItems(List<MusicItem> cartItems) {
+        this.cartLines = new ArrayList<>();
+        cartItems.forEach(this::addLine);
+    }
 
     public double getTotalAmount() { return totalAmount; }
     public void setTotalAmount(double totalAmount) { this.totalAmount = totalAmount; }
@@ -82,10 +98,8 @@ public class Order {
                 .append(" (ID: ").append(processedById).append(")")
                 .append("\nCart Items:");
 
-        for (MusicItem item : cartItems) {
-            orderDetails.append("\n  - ").append(item.getName())
-                    .append(" (Price: $").append(item.getPrice())
-                    .append(", Type: ").append(item.getType()).append(")");
+        for (CartLine line : cartLines) {
+            orderDetails.append("\n  - ").append(line);
         }
 
         orderDetails.append("\nTotal Amount: $").append(totalAmount);
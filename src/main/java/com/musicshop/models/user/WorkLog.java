@@ -21,6 +21,13 @@ public class WorkLog {
         this.checkInTime = LocalDateTime.now();
     }
 
+    // restores a stored log
+    public WorkLog(String userId, LocalDateTime checkInTime, LocalDateTime checkOutTime) {
+        this.userId = userId;
+        this.checkInTime = checkInTime;
+        this.checkOutTime = checkOutTime;
+    }
+
     public Duration getDuration() {
         if (checkOutTime == null) {
             return Duration.between(checkInTime, LocalDateTime.now());
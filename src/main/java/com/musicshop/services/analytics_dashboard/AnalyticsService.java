@@ -1,10 +1,11 @@
 package com.musicshop.services.analytics_dashboard;
 
-import com.musicshop.models.music.MusicItem;
 import com.musicshop.models.sales.Order;
 import com.musicshop.models.sales.SalesReport;
+import com.musicshop.services.inventory.InventoryFacets;
 import com.musicshop.services.inventory.InventoryServiceInterface;
 import com.musicshop.services.order.OrderServiceInterface;
+import com.musicshop.services.storage.MappedOrderStore;
 
 import java.time.*;
 import java.util.*;
@@ -13,20 +14,26 @@ import java.util.stream.Collectors;
 public class AnalyticsService {
     private final OrderServiceInterface orderService;
     private final InventoryServiceInterface inventoryService;
+    private final MappedOrderStore mappedOrders; // null unless reading orders from the mapped store
 
     public AnalyticsService(OrderServiceInterface orderService, InventoryServiceInterface inventoryService) {
+        this(orderService, inventoryService, null);
+    }
+
+    // analytics-only terminals read the order history from the mapped store instead of Order objects
+    public AnalyticsService(OrderServiceInterface orderService, InventoryServiceInterface inventoryService,
+                            MappedOrderStore mappedOrders) {
         this.orderService = orderService;
         this.inventoryService = inventoryService;
+        this.mappedOrders = mappedOrders;
     }
 
     public SalesReport generateSalesReport(LocalDateTime startDate, LocalDateTime endDate) {
-        List<Order> orders = orderService.getAllOrders().stream()
-                .filter(order -> {
-                    // Assuming Order class has getOrderDate()
-                    LocalDateTime orderDate = order.getOrderDate();
-                    return !orderDate.isBefore(startDate) && !orderDate.isAfter(endDate);
-                })
-                .collect(Collectors.toList());
+        if (mappedOrders != null) {
+            return generateMappedSalesReport(startDate, endDate);
+        }
+        // partitioned order storage only loads the months inside the range
+        List<Order> orders = orderService.getOrdersBetween(startDate, endDate);
 
         SalesReport report = new SalesReport();
         report.setTotalOrders(orders.size());
@@ -35,29 +42,18 @@ public class AnalyticsService {
         // Calculate top-selling items
         Map<String, Integer> itemSales = new HashMap<>();
         orders.forEach(order -> {
-            order.getCartItems().forEach(item -> {
-                itemSales.merge(item.getName(), 1, Integer::sum);
+            order.getCartLines().forEach(line -> {
+                itemSales.merge(line.getName(), line.getQuantity(), Integer::sum);
             });
         });
 
-        // Sort by value and get top 10
-        Map<String, Integer> topSelling = itemSales.entrySet().stream()
-                .sorted(Map.Entry.<String, Integer>comparingByValue().reversed())
-                .limit(10)
-                .collect(Collectors.toMap(
-                    Map.Entry::getKey,
-                    Map.Entry::getValue,
-                    (e1, e2) -> e1,
-                    LinkedHashMap::new
-                ));
-
-        report.getTopSellingItems().putAll(topSelling);
+        report.getTopSellingItems().putAll(topSelling(itemSales));
 
         // Calculate revenue by category
         Map<String, Double> revenueByType = new HashMap<>();
         orders.forEach(order -> {
-            order.getCartItems().forEach(item -> {
-                revenueByType.merge(item.getType(), item.getPrice(), Double::sum);
+            order.getCartLines().forEach(line -> {
+                revenueByType.merge(line.getType(), line.getLineTotal(), Double::sum);
             });
         });
         report.getRevenueByCategory().putAll(revenueByType);
@@ -65,20 +61,69 @@ public class AnalyticsService {
         return report;
     }
 
+    // Same report as above, aggregated straight from the mapped records without creating Order objects
+    private SalesReport generateMappedSalesReport(LocalDateTime startDate, LocalDateTime endDate) {
+        long start = startDate.toEpochSecond(ZoneOffset.UTC);
+        long end = endDate.toEpochSecond(ZoneOffset.UTC);
+        int totalOrders = 0;
+        double totalRevenue = 0;
+        Map<String, Integer> itemSales = new HashMap<>();
+        Map<String, Double> revenueByType = new HashMap<>();
+
+        MappedOrderStore.OrderCursor order = mappedOrders.cursor();
+        for (int i = 0; i < mappedOrders.size(); i++) {
+            order.moveTo(i);
+            long orderDate = order.orderDateEpochSecond();
+            if (orderDate < start || orderDate > end) {
+                continue;
+            }
+            totalOrders++;
+            totalRevenue += order.totalAmount();
+            for (int line = 0; line < order.lineCount(); line++) {
+                itemSales.merge(order.lineName(line), order.lineQuantity(line), Integer::sum);
+                revenueByType.merge(order.lineType(line), order.linePrice(line) * order.lineQuantity(line), Double::sum);
+            }
+        }
+
+        SalesReport report = new SalesReport();
+        report.setTotalOrders(totalOrders);
+        report.setTotalRevenue(totalRevenue);
+        report.getTopSellingItems().putAll(topSelling(itemSales));
+        report.getRevenueByCategory().putAll(revenueByType);
+        return report;
+    }
+
+    // Sort by value and get top 10
+    private Map<String, Integer> topSelling(Map<String, Integer> itemSales) {
+        return itemSales.entrySet().stream()
+                .sorted(Map.Entry.<String, Integer>comparingByValue().reversed())
+                .limit(10)
+                .collect(Collectors.toMap(
+                    Map.Entry::getKey,
+                    Map.Entry::getValue,
+                    (e1, e2) -> e1,
+                    LinkedHashMap::new
+                ));
+    }
+
     private double calculateTotalRevenue(List<Order> orders) {
         return orders.stream()
                 .mapToDouble(Order::getTotalAmount)
                 .sum();
     }
 
+    // Number of items (SKUs) per kind, from the inventory's live counters
     public Map<String, Integer> getInventoryStatus() {
-        return inventoryService.getItems().stream()
-                .collect(Collectors.groupingBy(
-                    MusicItem::getType,
-                    Collectors.collectingAndThen(
-                        Collectors.counting(),
-                        Long::intValue
-                    )
-                ));
+        Map<String, Integer> status = new LinkedHashMap<>();
+        getInventoryFacets().skusByType().forEach((type, skus) -> {
+            if (skus > 0) {
+                status.put(type.name().toLowerCase(Locale.ROOT), skus);
+            }
+        });
+        return status;
+    }
+
+    public InventoryFacets getInventoryFacets() {
+        return inventoryService.getFacets();
     }
 }
\ No newline at end of file
@@ -0,0 +1,42 @@
+package com.musicshop.services.inventory;
+
+import com.musicshop.models.music.Album;
+import com.musicshop.models.music.MusicItem;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Albums bucketed by case-folded artist, for exact artist filters
+class ArtistIndex implements InventoryIndex {
+    private final Map<String, Set<MusicItem>> itemsByArtist = new ConcurrentHashMap<>();
+
+    static String fold(String artist) {
+        return NameIndex.fold(artist);
+    }
+
+    static boolean matches(MusicItem item, String foldedArtist) {
+        return item instanceof Album album && album.getArtist() != null && fold(album.getArtist()).equals(foldedArtist);
+    }
+
+    Set<MusicItem> bucket(String foldedArtist) {
+        return itemsByArtist.getOrDefault(foldedArtist, Set.of());
+    }
+
+    @Override
+    public void add(MusicItem item) {
+        if (item instanceof Album album && album.getArtist() != null) {
+            itemsByArtist.computeIfAbsent(fold(album.getArtist()), key -> ConcurrentHashMap.newKeySet()).add(item);
+        }
+    }
+
+    @Override
+    public void remove(MusicItem item) {
+        if (item instanceof Album album && album.getArtist() != null) {
+            itemsByArtist.computeIfPresent(fold(album.getArtist()), (key, items) -> {
+                items.remove(item);
+                return items.isEmpty() ? null : items;
+            });
+        }
+    }
+}
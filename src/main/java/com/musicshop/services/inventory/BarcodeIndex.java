@@ -0,0 +1,32 @@
+package com.musicshop.services.inventory;
+
+import com.musicshop.models.music.MusicItem;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Barcode -> items, exact match; the first item added with a barcode is the one found.
+// Items without a barcode are not indexed.
+class BarcodeIndex implements InventoryIndex {
+    private final Map<String, List<MusicItem>> itemsByBarcode = new ConcurrentHashMap<>();
+
+    MusicItem find(String barcode) {
+        List<MusicItem> items = itemsByBarcode.get(barcode);
+        return items != null ? items.get(0) : null;
+    }
+
+    @Override
+    public void add(MusicItem item) {
+        if (item.getBarcode() != null) {
+            itemsByBarcode.compute(item.getBarcode(), (barcode, items) -> ItemBuckets.with(items, item));
+        }
+    }
+
+    @Override
+    public void remove(MusicItem item) {
+        if (item.getBarcode() != null) {
+            itemsByBarcode.computeIfPresent(item.getBarcode(), (barcode, items) -> ItemBuckets.without(items, item));
+        }
+    }
+}
@@ -0,0 +1,129 @@
+package com.musicshop.services.inventory;
+
+import com.musicshop.models.music.MusicItem;
+import com.musicshop.models.music.MusicItemType;
+
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+// Running totals behind InventoryFacets: SKUs and units per kind, SKUs in and out of stock and
+// SKUs per price bucket. Each index update adjusts them for one item, so reading never scans.
+// Reservations change quantities outside index updates, so the quantity counted for each item
+// is remembered and refresh() applies the difference, under a striped per-item lock like StockIndex.
+class FacetCounts implements InventoryIndex {
+    // upper bounds of the price buckets, exclusive; the last bucket is open
+    private static final double[] PRICE_BOUNDS = {25, 50, 100, 500};
+    private static final int STRIPES = 64; // power of two
+    private static final MusicItemType[] TYPES = MusicItemType.values();
+
+    private final Map<MusicItem, Integer> countedQuantity = new ConcurrentHashMap<>();
+    private final AtomicIntegerArray skusByType = new AtomicIntegerArray(TYPES.length);
+    private final AtomicLongArray unitsByType = new AtomicLongArray(TYPES.length);
+    private final AtomicInteger inStock = new AtomicInteger();
+    private final AtomicInteger outOfStock = new AtomicInteger();
+    private final AtomicIntegerArray skusByPriceBucket = new AtomicIntegerArray(PRICE_BOUNDS.length + 1);
+    private final Object[] locks = new Object[STRIPES];
+
+    FacetCounts() {
+        for (int i = 0; i < STRIPES; i++) {
+            locks[i] = new Object();
+        }
+    }
+
+    InventoryFacets snapshot() {
+        Map<MusicItemType, Integer> skus = new EnumMap<>(MusicItemType.class);
+        Map<MusicItemType, Long> units = new EnumMap<>(MusicItemType.class);
+        for (MusicItemType type : TYPES) {
+            skus.put(type, skusByType.get(type.ordinal()));
+            units.put(type, unitsByType.get(type.ordinal()));
+        }
+        Map<String, Integer> buckets = new LinkedHashMap<>();
+        for (int i = 0; i <= PRICE_BOUNDS.length; i++) {
+            buckets.put(bucketLabel(i), skusByPriceBucket.get(i));
+        }
+        return new InventoryFacets(skus, units, inStock.get(), outOfStock.get(), buckets);
+    }
+
+    @Override
+    public void add(MusicItem item) {
+        synchronized (lockFor(item)) {
+            int quantity = item.getQuantity();
+            if (countedQuantity.putIfAbsent(item, quantity) != null) {
+                return;
+            }
+            count(item, quantity, 1);
+        }
+    }
+
+    @Override
+    public void remove(MusicItem item) {
+        synchronized (lockFor(item)) {
+            Integer quantity = countedQuantity.remove(item);
+            if (quantity != null) {
+                count(item, quantity, -1);
+            }
+        }
+    }
+
+    // Catches up with a quantity change made outside InventoryService.updateItem
+    void refresh(MusicItem item) {
+        synchronized (lockFor(item)) {
+            Integer counted = countedQuantity.get(item);
+            int quantity = item.getQuantity();
+            if (counted == null || counted == quantity) {
+                return;
+            }
+            countedQuantity.put(item, quantity);
+            if (item.getItemType() != null) {
+                unitsByType.addAndGet(item.getItemType().ordinal(), quantity - counted);
+            }
+            countStock(counted, -1);
+            countStock(quantity, 1);
+        }
+    }
+
+    private void count(MusicItem item, int quantity, int sign) {
+        if (item.getItemType() != null) {
+            skusByType.addAndGet(item.getItemType().ordinal(), sign);
+            unitsByType.addAndGet(item.getItemType().ordinal(), (long) sign * quantity);
+        }
+        countStock(quantity, sign);
+        skusByPriceBucket.addAndGet(priceBucket(item.getPrice()), sign);
+    }
+
+    // same split as StockIndex: negative quantities are neither in nor out of stock
+    private void countStock(int quantity, int sign) {
+        if (quantity > 0) {
+            inStock.addAndGet(sign);
+        } else if (quantity == 0) {
+            outOfStock.addAndGet(sign);
+        }
+    }
+
+    private static int priceBucket(double price) {
+        int bucket = 0;
+        while (bucket < PRICE_BOUNDS.length && price >= PRICE_BOUNDS[bucket]) {
+            bucket++;
+        }
+        return bucket;
+    }
+
+    private static String bucketLabel(int bucket) {
+        if (bucket == 0) {
+            return "under $" + (int) PRICE_BOUNDS[0];
+        }
+        if (bucket == PRICE_BOUNDS.length) {
+            return "$" + (int) PRICE_BOUNDS[bucket - 1] + " and up";
+        }
+        return "$" + (int) PRICE_BOUNDS[bucket - 1] + " - $" + (int) PRICE_BOUNDS[bucket];
+    }
+
+    private Object lockFor(MusicItem item) {
+        return locks[System.identityHashCode(item) & (STRIPES - 1)];
+    }
+}
@@ -0,0 +1,171 @@
+package com.musicshop.services.inventory;
+
+import com.musicshop.models.music.MusicItem;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+// BK-tree over folded item names for typo-tolerant lookups. Children hang off their edit
+// distance to the parent, so a search within distance k only visits edges in [d - k, d + k]
+// instead of every name. Removing the last item of a name leaves a tombstone node, since
+// the tree can't drop an inner node; the tree is rebuilt once tombstones outnumber live names.
+// Writes are serialized, lookups run without locking.
+class FuzzyNameIndex implements InventoryIndex {
+    private static final int MIN_TOMBSTONES_FOR_REBUILD = 64;
+
+    private static final class Node {
+        final String key;
+        final Set<MusicItem> items = ConcurrentHashMap.newKeySet();
+        final Map<Integer, Node> children = new ConcurrentHashMap<>();
+
+        Node(String key) {
+            this.key = key;
+        }
+    }
+
+    record Match(MusicItem item, int distance) { }
+
+    private volatile Node root;
+    private int liveNames;
+    private int tombstones;
+
+    @Override
+    public synchronized void add(MusicItem item) {
+        if (item.getName() == null) {
+            return;
+        }
+        String key = NameIndex.fold(item.getName());
+        if (root == null) {
+            root = new Node(key);
+        }
+        Node node = root;
+        while (true) {
+            int distance = distance(key, node.key);
+            if (distance == 0) {
+                if (node.items.isEmpty()) {
+                    tombstones = Math.max(0, tombstones - 1);
+                    liveNames++;
+                }
+                node.items.add(item);
+                return;
+            }
+            Node child = node.children.get(distance);
+            if (child == null) {
+                child = new Node(key);
+                child.items.add(item);
+                node.children.put(distance, child);
+                liveNames++;
+                return;
+            }
+            node = child;
+        }
+    }
+
+    @Override
+    public synchronized void remove(MusicItem item) {
+        if (item.getName() == null || root == null) {
+            return;
+        }
+        String key = NameIndex.fold(item.getName());
+        Node node = root;
+        while (node != null) {
+            int distance = distance(key, node.key);
+            if (distance == 0) {
+                if (node.items.remove(item) && node.items.isEmpty()) {
+                    liveNames--;
+                    tombstones++;
+                    if (tombstones >= MIN_TOMBSTONES_FOR_REBUILD && tombstones > liveNames) {
+                        rebuild();
+                    }
+                }
+                return;
+            }
+            node = node.children.get(distance);
+        }
+    }
+
+    // Items whose folded name is within maxDistance edits of the given name,
+    // closest first, then alphabetically
+    List<Match> search(String name, int maxDistance, int limit) {
+        Node start = root;
+        List<Match> matches = new ArrayList<>();
+        if (start == null || limit <= 0) {
+            return matches;
+        }
+        String key = NameIndex.fold(name);
+        List<Node> hits = new ArrayList<>();
+        List<Integer> hitDistances = new ArrayList<>();
+        Deque<Node> pending = new ArrayDeque<>();
+        pending.push(start);
+        while (!pending.isEmpty()) {
+            Node node = pending.pop();
+            int distance = distance(key, node.key);
+            if (distance <= maxDistance && !node.items.isEmpty()) {
+                hits.add(node);
+                hitDistances.add(distance);
+            }
+            // triangle inequality: anything within maxDistance hangs off an edge in this range
+            for (int edge = Math.max(1, distance - maxDistance); edge <= distance + maxDistance; edge++) {
+                Node child = node.children.get(edge);
+                if (child != null) {
+                    pending.push(child);
+                }
+            }
+        }
+        for (int i = 0; i < hits.size(); i++) {
+            for (MusicItem item : hits.get(i).items) {
+                matches.add(new Match(item, hitDistances.get(i)));
+            }
+        }
+        matches.sort(Comparator.comparingInt(Match::distance)
+                .thenComparing(match -> match.item().getFoldedName()));
+        return matches.size() > limit ? new ArrayList<>(matches.subList(0, limit)) : matches;
+    }
+
+    private void rebuild() {
+        List<MusicItem> live = new ArrayList<>();
+        Deque<Node> pending = new ArrayDeque<>();
+        pending.push(root);
+        while (!pending.isEmpty()) {
+            Node node = pending.pop();
+            live.addAll(node.items);
+            node.children.values().forEach(pending::push);
+        }
+        // build aside and swap, so lookups never see a half-built tree
+        FuzzyNameIndex fresh = new FuzzyNameIndex();
+        live.forEach(fresh::add);
+        root = fresh.root;
+        liveNames = fresh.liveNames;
+        tombstones = 0;
+    }
+
+    // Levenshtein distance, two rows at a time
+    static int distance(String a, String b) {
+        if (a.equals(b)) {
+            return 0;
+        }
+        int[] previous = new int[b.length() + 1];
+        int[] current = new int[b.length() + 1];
+        for (int j = 0; j <= b.length(); j++) {
+            previous[j] = j;
+        }
+        for (int i = 1; i <= a.length(); i++) {
+            current[0] = i;
+            char ca = a.charAt(i - 1);
+            for (int j = 1; j <= b.length(); j++) {
+                int substitution = previous[j - 1] + (ca == b.charAt(j - 1) ? 0 : 1);
+                current[j] = Math.min(substitution, Math.min(previous[j], current[j - 1]) + 1);
+            }
+            int[] swap = previous;
+            previous = current;
+            current = swap;
+        }
+        return previous[b.length()];
+    }
+}
@@ -0,0 +1,44 @@
+package com.musicshop.services.inventory;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+// Outcome of InventoryService.importItems: what was added or merged, and the rows that were skipped
+public class ImportReport {
+    public record RowError(int line, String message) {
+        @Override
+        public String toString() { return "line " + line + ": " + message; }
+    }
+
+    private int addedItems;
+    private int mergedItems;
+    private long unitsReceived;
+    private final List<RowError> errors = new ArrayList<>();
+
+    void added(int quantity) {
+        addedItems++;
+        unitsReceived += quantity;
+    }
+
+    void merged(int quantity) {
+        mergedItems++;
+        unitsReceived += quantity;
+    }
+
+    void rejected(int line, String message) {
+        errors.add(new RowError(line, message));
+    }
+
+    public int getAddedItems() { return addedItems; }
+    public int getMergedItems() { return mergedItems; }
+    public long getUnitsReceived() { return unitsReceived; }
+    public List<RowError> getErrors() { return Collections.unmodifiableList(errors); }
+    public int getImportedRows() { return addedItems + mergedItems; }
+
+    @Override
+    public String toString() {
+        return "Imported " + getImportedRows() + " rows (" + addedItems + " new items, " + mergedItems
+                + " merged, " + unitsReceived + " units), " + errors.size() + " rows rejected";
+    }
+}
@@ -0,0 +1,13 @@
+package com.musicshop.services.inventory;
+
+import com.musicshop.models.music.MusicItemType;
+
+import java.util.Map;
+
+// Inventory totals for status screens, read from counters kept up to date by every change
+public record InventoryFacets(Map<MusicItemType, Integer> skusByType, Map<MusicItemType, Long> unitsByType,
+                              int inStockSkus, int outOfStockSkus, Map<String, Integer> skusByPriceBucket) {
+
+    public int getSkus(MusicItemType type) { return skusByType.getOrDefault(type, 0); }
+    public long getUnits(MusicItemType type) { return unitsByType.getOrDefault(type, 0L); }
+}
@@ -0,0 +1,9 @@
+package com.musicshop.services.inventory;
+
+import com.musicshop.models.music.MusicItem;
+
+// A secondary index over the inventory, kept up to date by InventoryService on every mutation
+interface InventoryIndex {
+    void add(MusicItem item);
+    void remove(MusicItem item);
+}
@@ -1,33 +1,82 @@
 package com.musicshop.services.inventory;
 
+import com.musicshop.Config;
+import com.musicshop.models.music.CompletionRank;
 import com.musicshop.models.music.MusicItem;
 import com.musicshop.models.music.SearchCriteria;
+import com.musicshop.models.music.SearchPage;
+import com.musicshop.models.music.SearchPageRequest;
+import com.musicshop.models.music.SearchSort;
+import com.musicshop.models.sales.CartLine;
 import com.musicshop.services.storage.FileStorageService;
 
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
 import java.util.List;
+import java.util.Map;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
 import java.util.stream.Collectors;
 
 public class InventoryService implements InventoryServiceInterface {
-    private final List<MusicItem> inventory;
+    // replaced as a whole on every mutation, see InventorySnapshot
+    private volatile InventorySnapshot snapshot;
+    private final Object writeLock = new Object();
     private final FileStorageService fileStorageService;
+    private final SearchCache searchCache;
+    private final NameIndex nameIndex = new NameIndex();
+    private final BarcodeIndex barcodeIndex = new BarcodeIndex();
+    private final TrigramIndex keywordIndex = new TrigramIndex();
+    private final PriceIndex priceIndex = new PriceIndex();
+    private final TypeIndex typeIndex = new TypeIndex();
+    private final StockIndex stockIndex = new StockIndex();
+    private final FuzzyNameIndex fuzzyNameIndex = new FuzzyNameIndex();
+    private final PrefixIndex prefixIndex = new PrefixIndex();
+    private final ArtistIndex artistIndex = new ArtistIndex();
+    private final YearIndex yearIndex = new YearIndex();
+    private final FacetCounts facetCounts = new FacetCounts();
+    private final List<InventoryIndex> indexes = List.of(nameIndex, barcodeIndex, keywordIndex, priceIndex,
+            typeIndex, stockIndex, fuzzyNameIndex, prefixIndex, artistIndex, yearIndex, facetCounts);
+    // units sold per item since startup, recorded by commit(); ranks autocomplete
+    private final Map<MusicItem, LongAdder> unitsSold = new ConcurrentHashMap<>();
+    private final QueryPlanner queryPlanner;
 
     public InventoryService(FileStorageService fileStorageService) {
-        this.inventory = new ArrayList<>();
+        this(fileStorageService, Config.getSearchCacheSize());
+    }
+
+    // a searchCacheSize of 0 disables the search cache
+    public InventoryService(FileStorageService fileStorageService, int searchCacheSize) {
         this.fileStorageService = fileStorageService;
+        this.searchCache = new SearchCache(searchCacheSize);
+        // reads the snapshot field directly, not the overridable getItems()/size()
+        this.queryPlanner = new QueryPlanner(keywordIndex, priceIndex, typeIndex, stockIndex, artistIndex, yearIndex,
+                () -> snapshot.items(), () -> snapshot.items().size());
 
         // Load items from JSON into memory on initialization
         List<MusicItem> loadedItems = fileStorageService.loadItems();
-        inventory.addAll(loadedItems);
+        this.snapshot = new InventorySnapshot(0, loadedItems);
+        snapshot.items().forEach(this::index);
     }
 
+    // The current snapshot's items: shared and unmodifiable, not a copy
     @Override
     public List<MusicItem> getItems() {
-        return new ArrayList<>(inventory);
+        return snapshot.items();
     }
 
-    public List<MusicItem> getInventory(){
-        return inventory;
+    // The current snapshot; its version changes with every mutation
+    public InventorySnapshot getSnapshot() {
+        return snapshot;
     }
 
     @Override
@@ -35,52 +84,327 @@ public class InventoryService implements InventoryServiceInterface {
         if (name == null || name.trim().isEmpty()) {
             return null; // Handle null or empty name
         }
+        return nameIndex.find(name);
+    }
 
-        String trimmedName = name.trim().toLowerCase(); // Convert the name to lower case once for comparison
-        for (MusicItem item : inventory) {
-            // for debuging
-            //System.out.println("item in inventory name: " + item.getName());
-            if (item.getName().toLowerCase().equals(trimmedName)) {
-                return item; // Return the first match found
-            }
+    @Override
+    public MusicItem findItemByBarcode(String barcode) {
+        if (barcode == null || barcode.trim().isEmpty()) {
+            return null;
+        }
+        return barcodeIndex.find(barcode.trim());
+    }
+
+    // Typo-tolerant lookup: items whose name is within maxDistance edits of the given one,
+    // ignoring case, closest first. Backed by a BK-tree, see FuzzyNameIndex.
+    public List<MusicItem> findSimilarItems(String name, int maxDistance, int limit) {
+        if (name == null || name.trim().isEmpty()) {
+            return List.of();
+        }
+        return fuzzyNameIndex.search(name, maxDistance, limit).stream()
+                .map(FuzzyNameIndex.Match::item)
+                .collect(Collectors.toList());
+    }
+
+    // Items whose name or album artist starts with the prefix (ignoring case), best ranked first.
+    // Only the matching branch of the prefix trie is visited, see PrefixIndex.
+    public List<MusicItem> autocomplete(String prefix, int limit, CompletionRank rank) {
+        if (prefix == null || prefix.trim().isEmpty()) {
+            return List.of();
         }
+        Comparator<MusicItem> best = rank == CompletionRank.SALES
+                ? Comparator.comparingLong(this::getUnitsSold).reversed()
+                : Comparator.comparingInt(MusicItem::getQuantity).reversed();
+        return prefixIndex.complete(prefix, limit, best.thenComparing(SearchSort.NAME.comparator(false)));
+    }
+
+    public long getUnitsSold(MusicItem item) {
+        LongAdder sold = unitsSold.get(item);
+        return sold != null ? sold.sum() : 0;
+    }
 
-        return null; // No match found
+    // Orders only keep a reference to what was sold; catalog details (artist, year, stock)
+    // come from the shared inventory item. Null once the item has left the inventory.
+    @Override
+    public MusicItem resolveCartLine(CartLine line) {
+        MusicItem item = line.getSku() != null ? findItemByBarcode(line.getSku()) : findItemByName(line.getName());
+        return item != null && line.refersTo(item) ? item : null;
     }
 
+    // Keywords match item names and album artists, case-insensitively. The query planner
+    // picks the most selective index to collect candidates, see explain().
     public List<MusicItem> searchItems(SearchCriteria criteria) {
-        return getItems().stream()
-            .filter(item -> matchesCriteria(item, criteria))
-            .collect(Collectors.toList());
+        return new ArrayList<>(cachedSearch(criteria, null, false, -1, 0).getItems());
+    }
+
+    // Same matches as searchItems, cheapest first
+    public List<MusicItem> searchItemsSortedByPrice(SearchCriteria criteria) {
+        return new ArrayList<>(cachedSearch(criteria, SearchSort.PRICE, false, -1, 0).getItems());
+    }
+
+    // One page of the matches in the requested order. Only the matches up to the end of
+    // the page are kept, so a broad search doesn't sort the whole catalog for one page.
+    public SearchPage searchItems(SearchCriteria criteria, SearchPageRequest request) {
+        return cachedSearch(criteria, request.getSort(), request.isDescending(), request.getCursor(), request.getPageSize());
     }
 
-    private boolean matchesCriteria(MusicItem item, SearchCriteria criteria) {
-        return (criteria.getKeyword() == null || 
-                item.getName().toLowerCase().contains(criteria.getKeyword().toLowerCase())) &&
-               (criteria.getMinPrice() == null || item.getPrice() >= criteria.getMinPrice()) &&
-               (criteria.getMaxPrice() == null || item.getPrice() <= criteria.getMaxPrice()) &&
-               (criteria.getItemType() == null || 
-                item.getClass().getSimpleName().equalsIgnoreCase(criteria.getItemType())) &&
-               (criteria.getInStock() == null || 
-                (criteria.getInStock() && item.getQuantity() > 0) ||
-                (!criteria.getInStock() && item.getQuantity() == 0));
+    // Repeated searches are answered from the search cache until a change touches an item they
+    // match (cursor -1 asks for all matches). Cached pages are shared, so their lists are unmodifiable.
+    private SearchPage cachedSearch(SearchCriteria criteria, SearchSort sort, boolean descending, int cursor, int pageSize) {
+        SearchCache.Key key = new SearchCache.Key(criteria, sort, descending, cursor, pageSize);
+        long stamp = searchCache.stamp();
+        SearchPage cached = searchCache.get(key);
+        if (cached != null) {
+            return cached;
+        }
+        QueryPlanner.QueryPlan plan = queryPlanner.plan(criteria, sort, descending);
+        SearchPage result = cursor < 0 ? new SearchPage(plan.execute(), -1) : plan.page(cursor, pageSize);
+        result = new SearchPage(List.copyOf(result.getItems()), result.getNextCursor());
+        Predicate<MusicItem> stockTest = criteria.getInStock() == null ? null : queryPlanner.plan(criteria.withoutStockFilter()).test();
+        searchCache.put(key, result, plan.test(), stockTest, stamp);
+        return result;
+    }
+
+    public SearchCacheStats getSearchCacheStats() {
+        return searchCache.stats();
+    }
+
+    // Live inventory totals, kept by every change instead of counted on demand
+    @Override
+    public InventoryFacets getFacets() {
+        return facetCounts.snapshot();
+    }
+
+    // How searchItems would evaluate the criteria, with the estimated candidates per step
+    public String explain(SearchCriteria criteria) {
+        return queryPlanner.plan(criteria).toString();
     }
 
+    private int size() { return snapshot.items().size(); }
+
     public void addItem(MusicItem newItem) {
-        MusicItem existingItem = findItemByName(newItem.getName());
-        if (existingItem != null) {
-            existingItem.increaseQuantity(newItem.getQuantity());
-            System.out.println("Increased quantity of " + newItem.getName() + " to " + existingItem.getQuantity());
+        synchronized (writeLock) {
+            MusicItem existingItem = findItemByName(newItem.getName());
+            if (existingItem != null) {
+                // Only stock changes, so skip the full re-index an updateItem would do
+                existingItem.increaseQuantity(newItem.getQuantity());
+                quantityChanged(existingItem);
+                searchCache.invalidateStock(existingItem);
+                snapshot = snapshot.touch();
+                System.out.println("Increased quantity of " + newItem.getName() + " to " + existingItem.getQuantity());
+            } else {
+                List<MusicItem> items = new ArrayList<>(snapshot.items());
+                items.add(newItem);
+                index(newItem);
+                snapshot = snapshot.with(items);
+                searchCache.invalidate(newItem);
+                System.out.println("Added new item: " + newItem.getName());
+            }
+            fileStorageService.saveItems(snapshot.items()); // Save inventory after modification
+        }
+    }
+
+    // Remove an item and save the inventory, false if it wasn't in the inventory
+    public boolean removeItem(MusicItem item) {
+        synchronized (writeLock) {
+            List<MusicItem> items = new ArrayList<>(snapshot.items());
+            if (item == null || !items.remove(item)) {
+                return false;
+            }
+            snapshot = snapshot.with(items);
+            unindex(item);
+            searchCache.invalidate(item);
+            unitsSold.remove(item);
+            fileStorageService.saveItems(snapshot.items());
+            return true;
+        }
+    }
+
+    // Edit an item in place, keeping the indexes consistent with the new values.
+    // Like direct edits before, the change is persisted by saveItemsInInventory().
+    public void updateItem(MusicItem item, Consumer<MusicItem> edit) {
+        synchronized (writeLock) {
+            searchCache.beginEdit(item);
+            try {
+                unindex(item);
+                edit.accept(item);
+                index(item);
+                snapshot = snapshot.touch();
+            } finally {
+                searchCache.endEdit(item);
+            }
+        }
+    }
+
+    // Receives a delivery file (JSON lines or CSV, see ItemImportReader) in one pass. Rows are merged
+    // into existing items by barcode, then by name, like addItem, and the inventory is saved once
+    // at the end. Bad rows are skipped and listed in the report. All or nothing: if the file can't
+    // be read to the end, nothing is applied or saved, so the import can simply be retried.
+    public ImportReport importItems(Path file) throws IOException {
+        ImportReport report = new ImportReport();
+        synchronized (writeLock) {
+            PendingRows added = new PendingRows();
+            try (BufferedReader reader = Files.newBufferedReader(file)) {
+                ItemImportReader rows = new ItemImportReader(reader, fileStorageService);
+                while (true) {
+                    try {
+                        MusicItem row = rows.next();
+                        if (row == null) {
+                            break;
+                        }
+                        importRow(row, added, report);
+                    } catch (IllegalArgumentException e) {
+                        report.rejected(rows.getLineNumber(), e.getMessage());
+                    }
+                }
+            }
+            // new rows reach the indexes and the snapshot together, so no reader finds
+            // an imported item through a search that getItems() does not list yet
+            if (!added.items.isEmpty() || !added.merges.isEmpty()) {
+                added.merges.forEach((item, quantity) -> {
+                    item.increaseQuantity(quantity);
+                    quantityChanged(item);
+                });
+                List<MusicItem> items = new ArrayList<>(snapshot.items());
+                items.addAll(added.items);
+                added.items.forEach(this::index);
+                snapshot = snapshot.with(items);
+                searchCache.clear(); // cheaper than testing every cached search per row
+                fileStorageService.saveItems(snapshot.items());
+            }
+        }
+        return report;
+    }
+
+    private void importRow(MusicItem row, PendingRows added, ImportReport report) {
+        MusicItem byBarcode = findItemByBarcode(row.getBarcode());
+        if (byBarcode == null) {
+            byBarcode = added.findByBarcode(row.getBarcode());
+        }
+        MusicItem byName = findItemByName(row.getName());
+        if (byName == null) {
+            byName = added.names.find(row.getName());
+        }
+        if (byBarcode != null && byName != null && byBarcode != byName) {
+            throw new IllegalArgumentException("barcode " + row.getBarcode() + " belongs to '" + byBarcode.getName()
+                    + "', not '" + byName.getName() + "'");
+        }
+        if (byBarcode == null && byName != null && row.getBarcode() != null && byName.getBarcode() != null) {
+            throw new IllegalArgumentException("'" + byName.getName() + "' has barcode " + byName.getBarcode()
+                    + ", not " + row.getBarcode());
+        }
+        MusicItem existing = byBarcode != null ? byBarcode : byName;
+        if (existing == null) {
+            added.add(row);
+            report.added(row.getQuantity());
+        } else if (existing.getItemType() != row.getItemType()) {
+            throw new IllegalArgumentException("'" + existing.getName() + "' is not " + row.getType());
         } else {
-            inventory.add(newItem);
-            System.out.println("Added new item: " + newItem.getName());
+            added.merge(existing, row.getQuantity());
+            report.merged(row.getQuantity());
+        }
+    }
+
+    // What an import changes, held back until the whole file has been read: new rows (later rows
+    // of the same file still merge into them by name or barcode) and the units merged into
+    // existing items.
+    private static final class PendingRows {
+        private final List<MusicItem> items = new ArrayList<>();
+        private final NameIndex names = new NameIndex();
+        private final BarcodeIndex barcodes = new BarcodeIndex();
+        private final Map<MusicItem, Integer> merges = new IdentityHashMap<>();
+        private final Set<MusicItem> newItems = Collections.newSetFromMap(new IdentityHashMap<>());
+
+        void add(MusicItem item) {
+            items.add(item);
+            newItems.add(item);
+            names.add(item);
+            barcodes.add(item);
+        }
+
+        // only the stock of the existing item changes, so no re-index is needed when applied
+        void merge(MusicItem existing, int quantity) {
+            if (newItems.contains(existing)) {
+                existing.increaseQuantity(quantity);
+            } else {
+                merges.merge(existing, quantity, Integer::sum);
+            }
+        }
+
+        MusicItem findByBarcode(String barcode) {
+            return barcode == null || barcode.trim().isEmpty() ? null : barcodes.find(barcode.trim());
+        }
+    }
+
+    // Takes quantity units of the item with this barcode (or name, for items without one) off
+    // the shelf. Null when there is no such item or not enough stock left. The quantity is
+    // claimed with a compare-and-set, so concurrent sales can never oversell; the indexes are
+    // then refreshed under the write lock, so a reservation never interleaves with a re-index
+    // and an item removed in the meantime gets its units back instead of being sold.
+    public StockReservation reserve(String sku, int quantity) {
+        MusicItem item = findItemByBarcode(sku);
+        return reserve(item != null ? item : findItemByName(sku), quantity);
+    }
+
+    public StockReservation reserve(MusicItem item, int quantity) {
+        if (quantity <= 0) {
+            throw new IllegalArgumentException("Reservation quantity must be positive: " + quantity);
+        }
+        if (item == null || !item.tryDecreaseQuantity(quantity)) {
+            return null;
+        }
+        synchronized (writeLock) {
+            if (!stockIndex.contains(item)) {
+                item.increaseQuantity(quantity); // no longer in the inventory
+                return null;
+            }
+            quantityChanged(item);
+        }
+        searchCache.invalidateStock(item);
+        return new StockReservation(item, quantity);
+    }
+
+    // The reserved units are sold; false if the reservation was already committed or released
+    public boolean commit(StockReservation reservation) {
+        if (!reservation.settle()) {
+            return false;
         }
-        fileStorageService.saveItems(inventory); // Save inventory after modification
+        unitsSold.computeIfAbsent(reservation.getItem(), item -> new LongAdder()).add(reservation.getQuantity());
+        fileStorageService.saveItems(snapshot.items()); // write-behind: a burst of sales costs one write
+        return true;
+    }
+
+    // Puts the reserved units back on the shelf; false if already committed or released
+    public boolean release(StockReservation reservation) {
+        if (!reservation.settle()) {
+            return false;
+        }
+        MusicItem item = reservation.getItem();
+        synchronized (writeLock) {
+            item.increaseQuantity(reservation.getQuantity());
+            quantityChanged(item);
+        }
+        searchCache.invalidateStock(item);
+        return true;
+    }
+
+    // Quantity-only changes refresh the structures that depend on stock
+    private void quantityChanged(MusicItem item) {
+        stockIndex.refresh(item);
+        facetCounts.refresh(item);
+    }
+
+    private void index(MusicItem item) {
+        indexes.forEach(index -> index.add(item));
+    }
+
+    private void unindex(MusicItem item) {
+        indexes.forEach(index -> index.remove(item));
     }
 
     // New method to save inventory using FileStorageService
     // used to save edited Item
     public void saveItemsInInventory() {
-        fileStorageService.saveItems(inventory);
+        fileStorageService.saveItems(snapshot.items());
     }
 }
\ No newline at end of file
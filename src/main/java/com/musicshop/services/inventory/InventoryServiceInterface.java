@@ -1,9 +1,13 @@
 package com.musicshop.services.inventory;
 
 import com.musicshop.models.music.MusicItem;
+import com.musicshop.models.sales.CartLine;
 import java.util.List;
 
 public interface InventoryServiceInterface {
     List<MusicItem> getItems();
     MusicItem findItemByName(String name);
+    MusicItem findItemByBarcode(String barcode);
+    MusicItem resolveCartLine(CartLine line);
+    InventoryFacets getFacets();
 }
\ No newline at end of file
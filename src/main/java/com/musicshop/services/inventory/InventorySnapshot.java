@@ -0,0 +1,23 @@
+package com.musicshop.services.inventory;
+
+import com.musicshop.models.music.MusicItem;
+
+import java.util.List;
+
+// An immutable view of the inventory list. Every mutation publishes a new snapshot
+// with a higher version, so readers can share one without copying it.
+public record InventorySnapshot(long version, List<MusicItem> items) {
+
+    public InventorySnapshot {
+        items = List.copyOf(items); // no copy when items is already immutable
+    }
+
+    // Same items, next version, for edits that change items but not the list
+    InventorySnapshot touch() {
+        return new InventorySnapshot(version + 1, items);
+    }
+
+    InventorySnapshot with(List<MusicItem> newItems) {
+        return new InventorySnapshot(version + 1, newItems);
+    }
+}
@@ -0,0 +1,39 @@
+package com.musicshop.services.inventory;
+
+import com.musicshop.models.music.MusicItem;
+
+import java.util.ArrayList;
+import java.util.List;
+
+// Copy-on-write buckets for indexes keyed by a value several items can share. Buckets are
+// replaced rather than changed, so readers of a concurrent map always see a whole one.
+final class ItemBuckets {
+    private ItemBuckets() { }
+
+    // The bucket with the item appended; null stands for an empty bucket
+    static List<MusicItem> with(List<MusicItem> bucket, MusicItem item) {
+        if (bucket == null) {
+            return List.of(item);
+        }
+        for (MusicItem other : bucket) {
+            if (other == item) {
+                return bucket;
+            }
+        }
+        List<MusicItem> items = new ArrayList<>(bucket.size() + 1);
+        items.addAll(bucket);
+        items.add(item);
+        return List.copyOf(items);
+    }
+
+    // The bucket without the item, null once it is empty
+    static List<MusicItem> without(List<MusicItem> bucket, MusicItem item) {
+        List<MusicItem> items = new ArrayList<>(bucket.size());
+        for (MusicItem other : bucket) {
+            if (other != item) {
+                items.add(other);
+            }
+        }
+        return items.isEmpty() ? null : items.size() == bucket.size() ? bucket : List.copyOf(items);
+    }
+}
@@ -0,0 +1,173 @@
+package com.musicshop.services.inventory;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.musicshop.models.music.Album;
+import com.musicshop.models.music.Instrument;
+import com.musicshop.models.music.MusicItem;
+import com.musicshop.models.music.MusicItemType;
+import com.musicshop.services.storage.FileStorageService;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+// Reads a delivery file one row at a time: either JSON lines in the inventory.json item format,
+// or CSV with a header naming the columns (type, name, price, quantity, barcode, artist, year).
+// The format is picked from the first non-blank line.
+class ItemImportReader {
+    private final BufferedReader reader;
+    private final FileStorageService storage; // parses JSON rows like inventory.json
+    private int lineNumber;
+    private Boolean json; // null until the first non-blank line
+    private Map<String, Integer> columns; // CSV header, lower-cased name to position
+
+    ItemImportReader(BufferedReader reader, FileStorageService storage) {
+        this.reader = reader;
+        this.storage = storage;
+    }
+
+    // Line of the row returned (or rejected) last
+    int getLineNumber() { return lineNumber; }
+
+    // The next row, null at the end of the file. A bad row throws IllegalArgumentException
+    // and the following call continues with the next line.
+    MusicItem next() throws IOException {
+        String line;
+        do {
+            line = reader.readLine();
+            if (line == null) {
+                return null;
+            }
+            lineNumber++;
+        } while (line.isBlank());
+
+        if (json == null) {
+            json = line.trim().startsWith("{");
+            if (!json) {
+                readHeader(line);
+                return next();
+            }
+        }
+        MusicItem item = json ? parseJson(line) : parseCsv(line);
+        validate(item);
+        return item;
+    }
+
+    // A bad header rejects the whole file
+    private void readHeader(String line) throws IOException {
+        columns = new HashMap<>();
+        List<String> names = splitCsv(line);
+        for (int i = 0; i < names.size(); i++) {
+            columns.put(names.get(i).trim().toLowerCase(Locale.ROOT), i);
+        }
+        for (String required : List.of("type", "name", "price")) {
+            if (!columns.containsKey(required)) {
+                throw new IOException("CSV header is missing the '" + required + "' column");
+            }
+        }
+    }
+
+    private MusicItem parseJson(String line) throws IOException {
+        try {
+            return storage.parseItem(line);
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException("not a valid item: " + e.getOriginalMessage());
+        }
+    }
+
+    private MusicItem parseCsv(String line) {
+        List<String> fields = splitCsv(line);
+        String name = field(fields, "name");
+        double price = parsePrice(fields);
+        int quantity = parseInt(fields, "quantity", 1);
+        String barcode = field(fields, "barcode");
+        MusicItemType type = MusicItemType.fromName(field(fields, "type"));
+        if (type == null) {
+            throw new IllegalArgumentException("unknown item type: " + field(fields, "type"));
+        }
+        return switch (type) {
+            case ALBUM -> new Album(name, price, field(fields, "artist"),
+                    parseInt(fields, "year", 0), "album", quantity, barcode);
+            case INSTRUMENT -> new Instrument(name, price, "instrument", quantity, barcode);
+        };
+    }
+
+    private static void validate(MusicItem item) {
+        if (item.getName() == null || item.getName().isBlank()) {
+            throw new IllegalArgumentException("name is missing");
+        }
+        if (!(item.getPrice() >= 0)) {
+            throw new IllegalArgumentException("invalid price: " + item.getPrice());
+        }
+        if (item.getQuantity() < 0) {
+            throw new IllegalArgumentException("invalid quantity: " + item.getQuantity());
+        }
+    }
+
+    // Trimmed value of a column, null when the column is absent or empty
+    private String field(List<String> fields, String column) {
+        Integer position = columns.get(column);
+        if (position == null || position >= fields.size()) {
+            return null;
+        }
+        String value = fields.get(position).trim();
+        return value.isEmpty() ? null : value;
+    }
+
+    private double parsePrice(List<String> fields) {
+        String value = field(fields, "price");
+        if (value == null) {
+            throw new IllegalArgumentException("price is missing");
+        }
+        try {
+            return Double.parseDouble(value);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("price is not a number: " + value);
+        }
+    }
+
+    private int parseInt(List<String> fields, String column, int fallback) {
+        String value = field(fields, column);
+        if (value == null) {
+            return fallback;
+        }
+        try {
+            return Integer.parseInt(value);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException(column + " is not a whole number: " + value);
+        }
+    }
+
+    // Splits one CSV line; fields may be quoted, with "" for a quote inside quotes
+    static List<String> splitCsv(String line) {
+        List<String> fields = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (quoted) {
+                if (c == '"' && i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                    field.append('"');
+                    i++;
+                } else if (c == '"') {
+                    quoted = false;
+                } else {
+                    field.append(c);
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                fields.add(field.toString());
+                field.setLength(0);
+            } else {
+                field.append(c);
+            }
+        }
+        fields.add(field.toString());
+        return fields;
+    }
+}
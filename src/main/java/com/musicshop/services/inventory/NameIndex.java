@@ -0,0 +1,37 @@
+package com.musicshop.services.inventory;
+
+import com.musicshop.models.music.MusicItem;
+
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Case-folded item name -> items with that name. When several items share a name the first
+// one added wins, like the linear search this replaces; removing it hands the name to the next.
+class NameIndex implements InventoryIndex {
+    private final Map<String, List<MusicItem>> itemsByName = new ConcurrentHashMap<>();
+
+    static String fold(String name) {
+        return name.trim().toLowerCase(Locale.ROOT);
+    }
+
+    MusicItem find(String name) {
+        List<MusicItem> items = itemsByName.get(fold(name));
+        return items != null ? items.get(0) : null;
+    }
+
+    @Override
+    public void add(MusicItem item) {
+        if (item.getName() != null) {
+            itemsByName.compute(fold(item.getName()), (name, items) -> ItemBuckets.with(items, item));
+        }
+    }
+
+    @Override
+    public void remove(MusicItem item) {
+        if (item.getName() != null) {
+            itemsByName.computeIfPresent(fold(item.getName()), (name, items) -> ItemBuckets.without(items, item));
+        }
+    }
+}
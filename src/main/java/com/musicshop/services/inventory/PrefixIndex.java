@@ -0,0 +1,246 @@
+package com.musicshop.services.inventory;
+
+import com.musicshop.models.music.Album;
+import com.musicshop.models.music.MusicItem;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.List;
+import java.util.Locale;
+import java.util.PriorityQueue;
+
+// Radix trie over folded item names and album artists, for autocomplete. Edges carry whole
+// label runs, so a catalog of n names takes about 2n nodes rather than one node per character.
+// Writes are serialized and never change a node readers can reach in place: child arrays are
+// replaced, and a split publishes a relabelled copy of the old child. Lookups take no lock.
+class PrefixIndex implements InventoryIndex {
+    private static final Node[] NO_CHILDREN = new Node[0];
+    private static final MusicItem[] NO_ITEMS = new MusicItem[0];
+
+    private static final class Node {
+        final String label;
+        volatile MusicItem[] items; // usually zero or one, so an array beats a set
+        volatile Node[] children; // sorted by first label char
+
+        Node(String label) {
+            this(label, NO_ITEMS, NO_CHILDREN);
+        }
+
+        Node(String label, MusicItem[] items, Node[] children) {
+            this.label = label;
+            this.items = items;
+            this.children = children;
+        }
+
+        // binary search of one version of the children array
+        static int childIndex(Node[] current, char first) {
+            int low = 0;
+            int high = current.length - 1;
+            while (low <= high) {
+                int mid = (low + high) >>> 1;
+                char c = current[mid].label.charAt(0);
+                if (c < first) {
+                    low = mid + 1;
+                } else if (c > first) {
+                    high = mid - 1;
+                } else {
+                    return mid;
+                }
+            }
+            return -(low + 1);
+        }
+    }
+
+    private final Node root = new Node("");
+
+    @Override
+    public synchronized void add(MusicItem item) {
+        keys(item).forEach(key -> insert(key, item));
+    }
+
+    @Override
+    public synchronized void remove(MusicItem item) {
+        keys(item).forEach(key -> delete(key, item));
+    }
+
+    // Up to limit items whose name or artist starts with the prefix, best first by the comparator
+    List<MusicItem> complete(String prefix, int limit, Comparator<MusicItem> best) {
+        Node start = find(prefix.stripLeading().toLowerCase(Locale.ROOT));
+        if (start == null || limit <= 0) {
+            return List.of();
+        }
+        // bounded heap, worst kept item on top
+        PriorityQueue<MusicItem> top = new PriorityQueue<>(limit + 1, best.reversed());
+        Deque<Node> pending = new ArrayDeque<>();
+        pending.push(start);
+        while (!pending.isEmpty()) {
+            Node node = pending.pop();
+            for (MusicItem item : node.items) {
+                if (top.size() == limit && best.compare(item, top.peek()) >= 0) {
+                    continue; // can't make the cut
+                }
+                if (!containsSame(top, item)) { // name and artist can both match
+                    top.offer(item);
+                    if (top.size() > limit) {
+                        top.poll();
+                    }
+                }
+            }
+            for (Node child : node.children) {
+                pending.push(child);
+            }
+        }
+        List<MusicItem> completions = new ArrayList<>(top);
+        completions.sort(best);
+        return completions;
+    }
+
+    private static int indexOf(MusicItem[] items, MusicItem item) {
+        for (int i = 0; i < items.length; i++) {
+            if (items[i] == item) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static boolean containsSame(PriorityQueue<MusicItem> top, MusicItem item) {
+        for (MusicItem kept : top) {
+            if (kept == item) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static List<String> keys(MusicItem item) {
+        List<String> keys = new ArrayList<>(2);
+        if (item.getName() != null) {
+            keys.add(NameIndex.fold(item.getName()));
+        }
+        if (item instanceof Album album && album.getArtist() != null) {
+            keys.add(NameIndex.fold(album.getArtist()));
+        }
+        return keys;
+    }
+
+    // The node whose subtree holds every key starting with prefix
+    private Node find(String prefix) {
+        Node node = root;
+        int position = 0;
+        while (position < prefix.length()) {
+            Node[] children = node.children;
+            int index = Node.childIndex(children, prefix.charAt(position));
+            if (index < 0) {
+                return null;
+            }
+            Node child = children[index];
+            int common = commonPrefix(child.label, prefix, position);
+            if (position + common == prefix.length()) {
+                return child; // prefix ends on or inside this edge
+            }
+            if (common < child.label.length()) {
+                return null;
+            }
+            node = child;
+            position += common;
+        }
+        return node;
+    }
+
+    private void insert(String key, MusicItem item) {
+        Node node = root;
+        int position = 0;
+        while (position < key.length()) {
+            int index = Node.childIndex(node.children, key.charAt(position));
+            if (index < 0) {
+                Node leaf = new Node(key.substring(position), new MusicItem[] {item}, NO_CHILDREN);
+                node.children = inserted(node.children, -(index + 1), leaf);
+                return;
+            }
+            Node child = node.children[index];
+            int common = commonPrefix(child.label, key, position);
+            if (common < child.label.length()) {
+                // split the edge: a new node for the shared part, the old child relabelled below it
+                Node rest = new Node(child.label.substring(common), child.items, child.children);
+                Node split = new Node(child.label.substring(0, common), NO_ITEMS, new Node[] {rest});
+                node.children = replaced(node.children, index, split);
+                child = split;
+            }
+            node = child;
+            position += common;
+        }
+        if (indexOf(node.items, item) < 0) {
+            MusicItem[] items = Arrays.copyOf(node.items, node.items.length + 1);
+            items[items.length - 1] = item;
+            node.items = items;
+        }
+    }
+
+    private void delete(String key, MusicItem item) {
+        Deque<Node> path = new ArrayDeque<>();
+        Node node = root;
+        int position = 0;
+        while (position < key.length()) {
+            int index = Node.childIndex(node.children, key.charAt(position));
+            if (index < 0) {
+                return;
+            }
+            Node child = node.children[index];
+            int common = commonPrefix(child.label, key, position);
+            if (common < child.label.length()) {
+                return;
+            }
+            path.push(node);
+            node = child;
+            position += common;
+        }
+        int index = indexOf(node.items, item);
+        if (index < 0) {
+            return;
+        }
+        MusicItem[] items = new MusicItem[node.items.length - 1];
+        System.arraycopy(node.items, 0, items, 0, index);
+        System.arraycopy(node.items, index + 1, items, index, items.length - index);
+        node.items = items;
+        // drop leaves that no longer lead to any item
+        while (!path.isEmpty() && node.items.length == 0 && node.children.length == 0) {
+            Node parent = path.pop();
+            parent.children = removed(parent.children, Node.childIndex(parent.children, node.label.charAt(0)));
+            node = parent;
+        }
+    }
+
+    private static int commonPrefix(String label, String key, int position) {
+        int max = Math.min(label.length(), key.length() - position);
+        int i = 0;
+        while (i < max && label.charAt(i) == key.charAt(position + i)) {
+            i++;
+        }
+        return i;
+    }
+
+    private static Node[] inserted(Node[] children, int index, Node child) {
+        Node[] copy = new Node[children.length + 1];
+        System.arraycopy(children, 0, copy, 0, index);
+        copy[index] = child;
+        System.arraycopy(children, index, copy, index + 1, children.length - index);
+        return copy;
+    }
+
+    private static Node[] replaced(Node[] children, int index, Node child) {
+        Node[] copy = Arrays.copyOf(children, children.length);
+        copy[index] = child;
+        return copy;
+    }
+
+    private static Node[] removed(Node[] children, int index) {
+        Node[] copy = new Node[children.length - 1];
+        System.arraycopy(children, 0, copy, 0, index);
+        System.arraycopy(children, index + 1, copy, index, children.length - index - 1);
+        return copy;
+    }
+}
@@ -0,0 +1,67 @@
+package com.musicshop.services.inventory;
+
+import com.musicshop.models.music.MusicItem;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+// Items ordered by price, for price-bounded searches and price-sorted results
+class PriceIndex implements InventoryIndex {
+    private final ConcurrentSkipListMap<Double, Set<MusicItem>> itemsByPrice = new ConcurrentSkipListMap<>();
+
+    // Items priced within [minPrice, maxPrice], cheapest first; null bounds are open
+    List<MusicItem> range(Double minPrice, Double maxPrice) {
+        return range(minPrice, maxPrice, false);
+    }
+
+    List<MusicItem> range(Double minPrice, Double maxPrice, boolean descending) {
+        NavigableMap<Double, Set<MusicItem>> slice = slice(minPrice, maxPrice);
+        List<MusicItem> items = new ArrayList<>();
+        (descending ? slice.descendingMap() : slice).values().forEach(items::addAll);
+        return items;
+    }
+
+    // Number of items within the range, counting stops once it passes limit
+    int count(Double minPrice, Double maxPrice, int limit) {
+        int count = 0;
+        for (Set<MusicItem> items : slice(minPrice, maxPrice).values()) {
+            count += items.size();
+            if (count > limit) {
+                break;
+            }
+        }
+        return count;
+    }
+
+    private NavigableMap<Double, Set<MusicItem>> slice(Double minPrice, Double maxPrice) {
+        if (minPrice != null && maxPrice != null && minPrice > maxPrice) {
+            return Collections.emptyNavigableMap(); // an inverted range matches nothing
+        }
+        NavigableMap<Double, Set<MusicItem>> slice = itemsByPrice;
+        if (minPrice != null) {
+            slice = slice.tailMap(minPrice, true);
+        }
+        if (maxPrice != null) {
+            slice = slice.headMap(maxPrice, true);
+        }
+        return slice;
+    }
+
+    @Override
+    public void add(MusicItem item) {
+        itemsByPrice.computeIfAbsent(item.getPrice(), key -> ConcurrentHashMap.newKeySet()).add(item);
+    }
+
+    @Override
+    public void remove(MusicItem item) {
+        itemsByPrice.computeIfPresent(item.getPrice(), (key, items) -> {
+            items.remove(item);
+            return items.isEmpty() ? null : items;
+        });
+    }
+}
@@ -0,0 +1,203 @@
+package com.musicshop.services.inventory;
+
+import com.musicshop.models.music.MusicItem;
+import com.musicshop.models.music.MusicItemType;
+import com.musicshop.models.music.SearchCriteria;
+import com.musicshop.models.music.SearchPage;
+import com.musicshop.models.music.SearchSort;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.PriorityQueue;
+import java.util.function.IntSupplier;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+// Compiles a SearchCriteria into a plan. Each criterion that is set becomes an
+// access path with an estimated number of candidates, taken from the index itself
+// (bucket and posting sizes, a bounded count over the price range). The smallest one
+// drives the search; the others are probed for each candidate, most selective first.
+// When even the best path would touch a large part of the catalog, a plain scan wins.
+// The per-item tests only see precomputed values: the keyword is folded once, types
+// compare as enums and item names are matched against their cached folded form.
+class QueryPlanner {
+    // a driver estimated above 1/SCAN_FRACTION of the catalog is replaced by a scan
+    private static final int SCAN_FRACTION = 8;
+    private static final int MIN_SCAN_ESTIMATE = 64;
+
+    private final TrigramIndex keywordIndex;
+    private final PriceIndex priceIndex;
+    private final TypeIndex typeIndex;
+    private final StockIndex stockIndex;
+    private final ArtistIndex artistIndex;
+    private final YearIndex yearIndex;
+    private final Supplier<List<MusicItem>> allItems;
+    private final IntSupplier itemCount;
+
+    QueryPlanner(TrigramIndex keywordIndex, PriceIndex priceIndex, TypeIndex typeIndex, StockIndex stockIndex,
+                 ArtistIndex artistIndex, YearIndex yearIndex, Supplier<List<MusicItem>> allItems, IntSupplier itemCount) {
+        this.keywordIndex = keywordIndex;
+        this.priceIndex = priceIndex;
+        this.typeIndex = typeIndex;
+        this.stockIndex = stockIndex;
+        this.artistIndex = artistIndex;
+        this.yearIndex = yearIndex;
+        this.allItems = allItems;
+        this.itemCount = itemCount;
+    }
+
+    // One way into the inventory: where candidates come from and how to test an item for
+    // the same criterion. Inexact paths return a superset that still has to pass the test.
+    record AccessPath(String description, int estimate, boolean exact,
+                      Supplier<Collection<MusicItem>> candidates, Predicate<MusicItem> test) { }
+
+    // order is null when the driver already yields items in the wanted order (or none is wanted)
+    record QueryPlan(AccessPath driver, List<AccessPath> filters, SearchSort sort, Comparator<MusicItem> order,
+                     int itemCount) {
+        List<MusicItem> execute() {
+            List<MusicItem> results = matches().collect(Collectors.toList());
+            if (order != null) {
+                results.sort(order);
+            }
+            return results;
+        }
+
+        // Only the matches up to the end of the page are kept: in driver order the stream
+        // stops there, otherwise a heap holds the best cursor + pageSize matches seen so far.
+        // One extra match tells whether there is a next page.
+        SearchPage page(int cursor, int pageSize) {
+            int wanted = cursor + pageSize + 1;
+            List<MusicItem> top;
+            if (order == null) {
+                top = matches().limit(wanted).collect(Collectors.toList());
+            } else {
+                PriorityQueue<MusicItem> heap = new PriorityQueue<>(wanted, order.reversed());
+                matches().forEach(item -> {
+                    if (heap.size() < wanted) {
+                        heap.offer(item);
+                    } else if (order.compare(item, heap.peek()) < 0) {
+                        heap.poll(); // drop the worst
+                        heap.offer(item);
+                    }
+                });
+                top = new ArrayList<>(heap);
+                top.sort(order);
+            }
+            boolean hasNext = top.size() == wanted;
+            List<MusicItem> items = top.subList(Math.min(cursor, top.size()), Math.min(cursor + pageSize, top.size()));
+            return new SearchPage(new ArrayList<>(items), hasNext ? cursor + pageSize : -1);
+        }
+
+        // Whether an item matches the criteria, whichever path the plan takes
+        Predicate<MusicItem> test() {
+            Predicate<MusicItem> test = driver.test();
+            for (AccessPath path : filters) {
+                test = test.and(path.test());
+            }
+            return test;
+        }
+
+        private Stream<MusicItem> matches() {
+            Predicate<MusicItem> filter = driver.exact() ? item -> true : driver.test();
+            for (AccessPath path : filters) {
+                filter = filter.and(path.test());
+            }
+            return driver.candidates().get().stream().filter(filter);
+        }
+
+        @Override
+        public String toString() {
+            StringBuilder plan = new StringBuilder("drive by ").append(driver.description())
+                    .append(" (est. ").append(driver.estimate()).append(" of ").append(itemCount).append(")");
+            for (AccessPath path : filters) {
+                plan.append("\n  then filter by ").append(path.description())
+                        .append(" (est. ").append(path.estimate()).append(")");
+            }
+            if (order != null) {
+                plan.append("\n  then sort by ").append(sort.name().toLowerCase(Locale.ROOT));
+            }
+            return plan.toString();
+        }
+    }
+
+    QueryPlan plan(SearchCriteria criteria) {
+        return plan(criteria, null, false);
+    }
+
+    // Results in the given sort order. Price order comes straight off the price index,
+    // unless another path is selective enough that sorting its few matches is cheaper.
+    QueryPlan plan(SearchCriteria criteria, SearchSort sort, boolean descending) {
+        boolean byPrice = sort == SearchSort.PRICE;
+        Comparator<MusicItem> order = sort != null ? sort.comparator(descending) : null;
+        int total = itemCount.getAsInt();
+        List<AccessPath> paths = new ArrayList<>();
+
+        if (criteria.getKeyword() != null) {
+            String keyword = TrigramIndex.fold(criteria.getKeyword());
+            int estimate = keywordIndex.estimate(keyword);
+            Predicate<MusicItem> test = item -> TrigramIndex.matches(item, keyword);
+            paths.add(estimate >= 0
+                    ? new AccessPath("keyword \"" + keyword + "\" via trigram postings", estimate, false,
+                            () -> keywordIndex.candidates(keyword), test)
+                    : new AccessPath("keyword \"" + keyword + "\" (too short to index)", total, false,
+                            allItems::get, test));
+        }
+        if (criteria.getItemType() != null) {
+            MusicItemType itemType = MusicItemType.fromName(criteria.getItemType());
+            paths.add(new AccessPath("type " + TrigramIndex.fold(criteria.getItemType()), typeIndex.bucket(itemType).size(), true,
+                    () -> typeIndex.bucket(itemType), item -> itemType != null && item.getItemType() == itemType));
+        }
+        if (criteria.getInStock() != null) {
+            boolean inStock = criteria.getInStock();
+            paths.add(new AccessPath(inStock ? "in stock" : "out of stock", stockIndex.items(inStock).size(), true,
+                    () -> stockIndex.items(inStock), item -> StockIndex.matches(item, inStock)));
+        }
+        if (criteria.getArtist() != null) {
+            String artist = ArtistIndex.fold(criteria.getArtist());
+            paths.add(new AccessPath("artist \"" + artist + "\"", artistIndex.bucket(artist).size(), true,
+                    () -> artistIndex.bucket(artist), item -> ArtistIndex.matches(item, artist)));
+        }
+        Integer minYear = criteria.getMinYear();
+        Integer maxYear = criteria.getMaxYear();
+        if (minYear != null || maxYear != null) {
+            int limit = paths.stream().mapToInt(AccessPath::estimate).min().orElse(total);
+            paths.add(new AccessPath("year " + (minYear != null ? minYear : "any") + " to " + (maxYear != null ? maxYear : "any"),
+                    yearIndex.count(minYear, maxYear, limit), true,
+                    () -> yearIndex.range(minYear, maxYear), item -> YearIndex.matches(item, minYear, maxYear)));
+        }
+        AccessPath pricePath = null;
+        Double min = criteria.getMinPrice();
+        Double max = criteria.getMaxPrice();
+        if (min != null || max != null || byPrice) {
+            // counting stops once it can no longer beat the best estimate so far
+            int limit = byPrice ? total : paths.stream().mapToInt(AccessPath::estimate).min().orElse(total);
+            pricePath = new AccessPath("price " + (min != null ? min : "any") + " to " + (max != null ? max : "any"),
+                    min == null && max == null ? total : priceIndex.count(min, max, limit), true,
+                    () -> priceIndex.range(min, max, descending),
+                    item -> (min == null || item.getPrice() >= min) && (max == null || item.getPrice() <= max));
+            if (min != null || max != null) {
+                paths.add(pricePath);
+            }
+        }
+        paths.sort(Comparator.comparingInt(AccessPath::estimate));
+
+        AccessPath best = paths.isEmpty() ? null : paths.get(0);
+        boolean selective = best != null
+                && (best.estimate() <= MIN_SCAN_ESTIMATE || best.estimate() <= total / SCAN_FRACTION);
+        if (byPrice && (!selective || best == pricePath)) {
+            List<AccessPath> filters = new ArrayList<>(paths);
+            filters.remove(pricePath);
+            // items come out of the index in price order; equal prices keep the index's order
+            return new QueryPlan(pricePath, filters, sort, null, total);
+        }
+        if (!selective) {
+            return new QueryPlan(new AccessPath("full scan", total, true, allItems::get, item -> true), paths, sort, order, total);
+        }
+        return new QueryPlan(best, paths.subList(1, paths.size()), sort, order, total);
+    }
+}
@@ -0,0 +1,114 @@
+package com.musicshop.services.inventory;
+
+import com.musicshop.models.music.MusicItem;
+import com.musicshop.models.music.SearchCriteria;
+import com.musicshop.models.music.SearchPage;
+import com.musicshop.models.music.SearchSort;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Predicate;
+
+// Bounded LRU cache of search results. Each entry keeps the test its criteria compiled to, so
+// a change to one item only drops the entries that item matched before or after the change.
+// A result is not stored when an invalidation happened while it was computed, or while an
+// edit is still in progress, since it may have seen the item half-changed.
+class SearchCache {
+    // cursor -1 is the full result list rather than one page
+    record Key(SearchCriteria criteria, SearchSort sort, boolean descending, int cursor, int pageSize) { }
+
+    // stockTest is the test without the stock filter, null when the criteria have none
+    private record Entry(SearchPage page, Predicate<MusicItem> test, Predicate<MusicItem> stockTest) { }
+
+    private final int capacity;
+    private final LinkedHashMap<Key, Entry> entries;
+    private long hits;
+    private long misses;
+    private long evictions;
+    private long invalidations;
+    private long stamp; // bumped by every invalidation
+    private int editsInProgress;
+
+    SearchCache(int capacity) {
+        this.capacity = capacity;
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) { // access order, eldest is least recently used
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Key, Entry> eldest) {
+                if (size() > SearchCache.this.capacity) {
+                    evictions++;
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    // Null on a miss; the stamp to pass to put is read alongside
+    synchronized SearchPage get(Key key) {
+        Entry entry = entries.get(key);
+        if (entry == null) {
+            misses++;
+            return null;
+        }
+        hits++;
+        return entry.page();
+    }
+
+    synchronized long stamp() {
+        return stamp;
+    }
+
+    // Stores a result computed after stamp() returned observedStamp, unless items changed since
+    synchronized void put(Key key, SearchPage page, Predicate<MusicItem> test, Predicate<MusicItem> stockTest,
+                          long observedStamp) {
+        if (capacity > 0 && observedStamp == stamp && editsInProgress == 0) {
+            entries.put(key, new Entry(page, test, stockTest));
+        }
+    }
+
+    // An item was added or removed: drops the entries it matches
+    synchronized void invalidate(MusicItem item) {
+        stamp++;
+        invalidateIf(entry -> entry.test().test(item));
+    }
+
+    // An item is about to be edited in place: drops the entries it matches now and holds
+    // off new entries until endEdit, called once the item is re-indexed
+    synchronized void beginEdit(MusicItem item) {
+        invalidate(item);
+        editsInProgress++;
+    }
+
+    synchronized void endEdit(MusicItem item) {
+        editsInProgress--;
+        invalidate(item);
+    }
+
+    // Only the item's quantity changed, atomically: results without a stock filter still hold,
+    // stock-filtered ones may have gained or lost the item
+    synchronized void invalidateStock(MusicItem item) {
+        stamp++;
+        invalidateIf(entry -> entry.stockTest() != null && entry.stockTest().test(item));
+    }
+
+    private void invalidateIf(Predicate<Entry> stale) {
+        Iterator<Entry> iterator = entries.values().iterator();
+        while (iterator.hasNext()) {
+            if (stale.test(iterator.next())) {
+                iterator.remove();
+                invalidations++;
+            }
+        }
+    }
+
+    synchronized void clear() {
+        stamp++;
+        invalidations += entries.size();
+        entries.clear();
+    }
+
+    synchronized SearchCacheStats stats() {
+        return new SearchCacheStats(hits, misses, evictions, invalidations, entries.size(), capacity);
+    }
+}
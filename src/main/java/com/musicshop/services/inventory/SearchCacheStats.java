@@ -0,0 +1,16 @@
+package com.musicshop.services.inventory;
+
+// Counters of the inventory search cache since startup
+public record SearchCacheStats(long hits, long misses, long evictions, long invalidations, int size, int capacity) {
+
+    public double hitRate() {
+        long lookups = hits + misses;
+        return lookups == 0 ? 0 : (double) hits / lookups;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%d/%d entries, %d hits, %d misses (%.0f%% hit rate), %d evictions, %d invalidations",
+                size, capacity, hits, misses, hitRate() * 100, evictions, invalidations);
+    }
+}
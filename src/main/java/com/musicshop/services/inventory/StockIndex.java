@@ -0,0 +1,81 @@
+package com.musicshop.services.inventory;
+
+import com.musicshop.models.music.MusicItem;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Items split by stock status. Reservations change quantities outside InventoryService.updateItem,
+// so an item is moved between the sets under a striped per-item lock and always re-reads its quantity.
+class StockIndex implements InventoryIndex {
+    private static final int STRIPES = 64; // power of two
+
+    private final Set<MusicItem> inStock = ConcurrentHashMap.newKeySet();
+    private final Set<MusicItem> outOfStock = ConcurrentHashMap.newKeySet();
+    private final Object[] locks = new Object[STRIPES];
+
+    StockIndex() {
+        for (int i = 0; i < STRIPES; i++) {
+            locks[i] = new Object();
+        }
+    }
+
+    // Matches SearchCriteria.inStock: true is quantity > 0, false is quantity == 0
+    static boolean matches(MusicItem item, boolean wantInStock) {
+        return wantInStock ? item.getQuantity() > 0 : item.getQuantity() == 0;
+    }
+
+    Set<MusicItem> items(boolean wantInStock) {
+        return wantInStock ? inStock : outOfStock;
+    }
+
+    @Override
+    public void add(MusicItem item) {
+        synchronized (lockFor(item)) {
+            place(item);
+        }
+    }
+
+    @Override
+    public void remove(MusicItem item) {
+        synchronized (lockFor(item)) {
+            inStock.remove(item);
+            outOfStock.remove(item);
+        }
+    }
+
+    boolean contains(MusicItem item) {
+        synchronized (lockFor(item)) {
+            return inStock.contains(item) || outOfStock.contains(item);
+        }
+    }
+
+    // Re-files an indexed item after its quantity changed. Items that are not indexed
+    // (removed, or in the middle of an updateItem) are left alone.
+    void refresh(MusicItem item) {
+        synchronized (lockFor(item)) {
+            if (inStock.contains(item) || outOfStock.contains(item)) {
+                place(item);
+            }
+        }
+    }
+
+    private void place(MusicItem item) {
+        int quantity = item.getQuantity();
+        if (quantity > 0) {
+            outOfStock.remove(item);
+            inStock.add(item);
+        } else {
+            inStock.remove(item);
+            if (quantity == 0) {
+                outOfStock.add(item);
+            } else {
+                outOfStock.remove(item);
+            }
+        }
+    }
+
+    private Object lockFor(MusicItem item) {
+        return locks[System.identityHashCode(item) & (STRIPES - 1)];
+    }
+}
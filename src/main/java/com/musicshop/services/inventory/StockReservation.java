@@ -0,0 +1,32 @@
+package com.musicshop.services.inventory;
+
+import com.musicshop.models.music.MusicItem;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+
+// Units taken off the shelf for a cart. The item's quantity already excludes them;
+// InventoryService.commit keeps them sold, InventoryService.release puts them back.
+public final class StockReservation {
+    private final MusicItem item;
+    private final int quantity;
+    private final AtomicBoolean settled = new AtomicBoolean();
+
+    StockReservation(MusicItem item, int quantity) {
+        this.item = item;
+        this.quantity = quantity;
+    }
+
+    public MusicItem getItem() { return item; }
+    public int getQuantity() { return quantity; }
+    public boolean isSettled() { return settled.get(); }
+
+    // true for the one caller that gets to commit or release it
+    boolean settle() {
+        return settled.compareAndSet(false, true);
+    }
+
+    @Override
+    public String toString() {
+        return item.getName() + " x" + quantity + (isSettled() ? " (settled)" : " (pending)");
+    }
+}
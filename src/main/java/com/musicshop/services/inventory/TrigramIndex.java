@@ -0,0 +1,112 @@
+package com.musicshop.services.inventory;
+
+import com.musicshop.models.music.Album;
+import com.musicshop.models.music.MusicItem;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Inverted index from lower-cased 3-character substrings of item names and album
+// artists to the items containing them. A keyword's candidates are the items in
+// every posting list of its trigrams; they still have to be verified with contains(),
+// since sharing all trigrams doesn't guarantee the keyword appears as one run.
+class TrigramIndex implements InventoryIndex {
+    static final int GRAM_LENGTH = 3;
+
+    private final Map<String, Set<MusicItem>> postings = new ConcurrentHashMap<>();
+
+    static String fold(String text) {
+        return text.toLowerCase(Locale.ROOT);
+    }
+
+    // Name or artist contains the already folded keyword
+    static boolean matches(MusicItem item, String foldedKeyword) {
+        String name = item.getFoldedName();
+        if (name != null && name.contains(foldedKeyword)) {
+            return true;
+        }
+        return item instanceof Album album && album.getArtist() != null
+                && album.getFoldedArtist().contains(foldedKeyword);
+    }
+
+    // Upper bound on the candidates for a keyword: its shortest posting list.
+    // -1 when the keyword is too short to have trigrams.
+    int estimate(String foldedKeyword) {
+        if (foldedKeyword.length() < GRAM_LENGTH) {
+            return -1;
+        }
+        int shortest = Integer.MAX_VALUE;
+        for (String gram : grams(foldedKeyword)) {
+            Set<MusicItem> posting = postings.get(gram);
+            shortest = Math.min(shortest, posting != null ? posting.size() : 0);
+        }
+        return shortest;
+    }
+
+    // Items holding every trigram of a keyword of at least GRAM_LENGTH characters
+    List<MusicItem> candidates(String foldedKeyword) {
+        List<Set<MusicItem>> lists = new ArrayList<>();
+        for (String gram : grams(foldedKeyword)) {
+            Set<MusicItem> posting = postings.get(gram);
+            if (posting == null) {
+                return List.of();
+            }
+            lists.add(posting);
+        }
+        // walk the shortest list, probing the others from the next shortest up
+        lists.sort(Comparator.comparingInt(Set::size));
+        List<MusicItem> candidates = new ArrayList<>();
+        for (MusicItem item : lists.get(0)) {
+            boolean inAll = true;
+            for (int i = 1; i < lists.size() && inAll; i++) {
+                inAll = lists.get(i).contains(item);
+            }
+            if (inAll) {
+                candidates.add(item);
+            }
+        }
+        return candidates;
+    }
+
+    @Override
+    public void add(MusicItem item) {
+        for (String gram : grams(item)) {
+            postings.computeIfAbsent(gram, key -> ConcurrentHashMap.newKeySet()).add(item);
+        }
+    }
+
+    @Override
+    public void remove(MusicItem item) {
+        for (String gram : grams(item)) {
+            postings.computeIfPresent(gram, (key, posting) -> {
+                posting.remove(item);
+                return posting.isEmpty() ? null : posting;
+            });
+        }
+    }
+
+    private static Set<String> grams(MusicItem item) {
+        Set<String> grams = new LinkedHashSet<>();
+        if (item.getName() != null) {
+            grams.addAll(grams(item.getFoldedName()));
+        }
+        if (item instanceof Album album && album.getArtist() != null) {
+            grams.addAll(grams(album.getFoldedArtist()));
+        }
+        return grams;
+    }
+
+    private static Set<String> grams(String folded) {
+        Set<String> grams = new LinkedHashSet<>();
+        for (int i = 0; i + GRAM_LENGTH <= folded.length(); i++) {
+            grams.add(folded.substring(i, i + GRAM_LENGTH));
+        }
+        return grams;
+    }
+}
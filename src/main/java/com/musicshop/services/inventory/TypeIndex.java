@@ -0,0 +1,34 @@
+package com.musicshop.services.inventory;
+
+import com.musicshop.models.music.MusicItem;
+import com.musicshop.models.music.MusicItemType;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Items bucketed by kind. Items of a kind outside MusicItemType are not indexed.
+class TypeIndex implements InventoryIndex {
+    private final Map<MusicItemType, Set<MusicItem>> itemsByType = new ConcurrentHashMap<>();
+
+    Set<MusicItem> bucket(MusicItemType itemType) {
+        return itemType != null ? itemsByType.getOrDefault(itemType, Set.of()) : Set.of();
+    }
+
+    @Override
+    public void add(MusicItem item) {
+        if (item.getItemType() != null) {
+            itemsByType.computeIfAbsent(item.getItemType(), key -> ConcurrentHashMap.newKeySet()).add(item);
+        }
+    }
+
+    @Override
+    public void remove(MusicItem item) {
+        if (item.getItemType() != null) {
+            itemsByType.computeIfPresent(item.getItemType(), (key, items) -> {
+                items.remove(item);
+                return items.isEmpty() ? null : items;
+            });
+        }
+    }
+}
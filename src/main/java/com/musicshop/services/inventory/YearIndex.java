@@ -0,0 +1,72 @@
+package com.musicshop.services.inventory;
+
+import com.musicshop.models.music.Album;
+import com.musicshop.models.music.MusicItem;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+// Albums ordered by release year, for year-range searches
+class YearIndex implements InventoryIndex {
+    private final ConcurrentSkipListMap<Integer, Set<MusicItem>> itemsByYear = new ConcurrentSkipListMap<>();
+
+    static boolean matches(MusicItem item, Integer minYear, Integer maxYear) {
+        return item instanceof Album album
+                && (minYear == null || album.getYear() >= minYear) && (maxYear == null || album.getYear() <= maxYear);
+    }
+
+    // Albums released within [minYear, maxYear]; null bounds are open
+    List<MusicItem> range(Integer minYear, Integer maxYear) {
+        List<MusicItem> items = new ArrayList<>();
+        slice(minYear, maxYear).values().forEach(items::addAll);
+        return items;
+    }
+
+    // Number of albums within the range, counting stops once it passes limit
+    int count(Integer minYear, Integer maxYear, int limit) {
+        int count = 0;
+        for (Set<MusicItem> items : slice(minYear, maxYear).values()) {
+            count += items.size();
+            if (count > limit) {
+                break;
+            }
+        }
+        return count;
+    }
+
+    private NavigableMap<Integer, Set<MusicItem>> slice(Integer minYear, Integer maxYear) {
+        if (minYear != null && maxYear != null && minYear > maxYear) {
+            return Collections.emptyNavigableMap(); // an inverted range matches nothing
+        }
+        NavigableMap<Integer, Set<MusicItem>> slice = itemsByYear;
+        if (minYear != null) {
+            slice = slice.tailMap(minYear, true);
+        }
+        if (maxYear != null) {
+            slice = slice.headMap(maxYear, true);
+        }
+        return slice;
+    }
+
+    @Override
+    public void add(MusicItem item) {
+        if (item instanceof Album album) {
+            itemsByYear.computeIfAbsent(album.getYear(), key -> ConcurrentHashMap.newKeySet()).add(item);
+        }
+    }
+
+    @Override
+    public void remove(MusicItem item) {
+        if (item instanceof Album album) {
+            itemsByYear.computeIfPresent(album.getYear(), (key, items) -> {
+                items.remove(item);
+                return items.isEmpty() ? null : items;
+            });
+        }
+    }
+}
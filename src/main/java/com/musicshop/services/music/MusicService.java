@@ -22,10 +22,11 @@ public class MusicService implements MusicServiceInterface {
     public void removeItem(String itemName) {
         System.out.println("Attempting to remove item: " + itemName);
 
-        //itemToRemove = inventoryService.findItemByName(itemName);
-
-        inventoryService.getItems().remove(itemName);
-        inventoryService.saveItemsInInventory();
-        //System.out.println("Item '" + itemToRemove.getName() + "' has been removed from the inventory.");
+        MusicItem itemToRemove = inventoryService.findItemByName(itemName);
+        if (inventoryService.removeItem(itemToRemove)) {
+            System.out.println("Item '" + itemToRemove.getName() + "' has been removed from the inventory.");
+        } else {
+            System.out.println("Item not found in the inventory.");
+        }
     }
 }
\ No newline at end of file
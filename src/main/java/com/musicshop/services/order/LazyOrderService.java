@@ -0,0 +1,50 @@
+package com.musicshop.services.order;
+
+import com.musicshop.models.sales.Order;
+import com.musicshop.models.user.User;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+import java.util.function.Supplier;
+
+// Defers loading the order history until something actually asks for orders.
+// Terminals that read analytics from the mapped store may never need it.
+public class LazyOrderService implements OrderServiceInterface {
+    private final Supplier<? extends OrderServiceInterface> loader;
+    private volatile OrderServiceInterface orderService;
+
+    public LazyOrderService(Supplier<? extends OrderServiceInterface> loader) {
+        this.loader = loader;
+    }
+
+    public boolean isLoaded() { return orderService != null; }
+
+    private OrderServiceInterface orderService() {
+        OrderServiceInterface loaded = orderService;
+        if (loaded == null) {
+            synchronized (this) {
+                loaded = orderService;
+                if (loaded == null) {
+                    loaded = loader.get();
+                    orderService = loaded;
+                }
+            }
+        }
+        return loaded;
+    }
+
+    @Override
+    public void processOrder(Order order, User employee) { orderService().processOrder(order, employee); }
+
+    @Override
+    public List<Order> getAllOrders() { return orderService().getAllOrders(); }
+
+    @Override
+    public List<Order> getOrdersBetween(LocalDateTime startDate, LocalDateTime endDate) {
+        return orderService().getOrdersBetween(startDate, endDate);
+    }
+
+    @Override
+    public Optional<Order> findOrderById(String orderId) { return orderService().findOrderById(orderId); }
+}
@@ -0,0 +1,177 @@
+package com.musicshop.services.order;
+
+import com.musicshop.models.sales.Order;
+import com.musicshop.services.storage.FileStorageService;
+import com.musicshop.services.storage.OrderIdFilter;
+import com.musicshop.services.storage.OrderManifest;
+
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+// In-memory view of the monthly order partitions.
+// The newest partition is always resident; older ones are loaded on demand and
+// evicted least-recently-used first once they hold more than the order budget.
+// Partitions with unsaved orders are never evicted.
+class OrderPartitionStore {
+    private final FileStorageService fileStorageService;
+    private final OrderManifest manifest;
+    private final int residentOrderBudget;
+    private final LinkedHashMap<YearMonth, List<Order>> loaded = new LinkedHashMap<>(16, 0.75f, true);
+    private final Set<YearMonth> dirty = new HashSet<>();
+    private final Map<YearMonth, OrderIdFilter> idFilters = new HashMap<>(); // loaded on first lookup
+    private YearMonth currentMonth;
+    private List<Order> current;
+    private int residentOrderCount;
+
+    OrderPartitionStore(FileStorageService fileStorageService, OrderManifest manifest, int residentOrderBudget) {
+        this.fileStorageService = fileStorageService;
+        this.manifest = manifest;
+        this.residentOrderBudget = residentOrderBudget;
+        this.currentMonth = manifest.getPartitions().isEmpty()
+                ? YearMonth.now()
+                : YearMonth.parse(manifest.getPartitions().lastKey());
+        this.current = manifest.hasPartition(currentMonth)
+                ? fileStorageService.loadOrderPartition(currentMonth)
+                : new ArrayList<>();
+    }
+
+    void add(Order order) {
+        YearMonth month = YearMonth.from(order.getOrderDate());
+        if (month.isAfter(currentMonth)) {
+            // roll over: the old current partition becomes an ordinary (still dirty) loaded one
+            cache(currentMonth, current);
+            currentMonth = month;
+            current = new ArrayList<>();
+        }
+        partition(month).add(order);
+        dirty.add(month);
+        if (!month.equals(currentMonth)) {
+            residentOrderCount++;
+        }
+    }
+
+    // Checked for every journal record on open: only a partition whose id filter
+    // might hold the order is read
+    boolean contains(Order order) {
+        return find(YearMonth.from(order.getOrderDate()), order.getOrderId()).isPresent();
+    }
+
+    // Orders dated within [start, end], loading only the partitions that overlap the range
+    List<Order> between(LocalDateTime start, LocalDateTime end) {
+        List<Order> orders = new ArrayList<>();
+        for (YearMonth month : months()) {
+            if (month.isBefore(YearMonth.from(start)) || month.isAfter(YearMonth.from(end))) {
+                continue;
+            }
+            for (Order order : partition(month)) {
+                LocalDateTime orderDate = order.getOrderDate();
+                if (!orderDate.isBefore(start) && !orderDate.isAfter(end)) {
+                    orders.add(order);
+                }
+            }
+            evictOverBudget();
+        }
+        return orders;
+    }
+
+    List<Order> all() {
+        List<Order> orders = new ArrayList<>();
+        for (YearMonth month : months()) {
+            orders.addAll(partition(month));
+            evictOverBudget();
+        }
+        return orders;
+    }
+
+    // Newest month first; resident partitions are searched in memory, the others
+    // only when their id filter might contain the order
+    Optional<Order> findById(String orderId) {
+        for (YearMonth month : months().descendingSet()) {
+            Optional<Order> found = find(month, orderId);
+            if (found.isPresent()) {
+                return found;
+            }
+        }
+        return Optional.empty();
+    }
+
+    private Optional<Order> find(YearMonth month, String orderId) {
+        boolean resident = month.equals(currentMonth) || loaded.containsKey(month);
+        if (!resident && (!manifest.hasPartition(month) || !idFilter(month).mightContain(orderId))) {
+            return Optional.empty();
+        }
+        Optional<Order> found = partition(month).stream()
+                .filter(order -> order.getOrderId().equals(orderId))
+                .findFirst();
+        evictOverBudget();
+        return found;
+    }
+
+    private OrderIdFilter idFilter(YearMonth month) {
+        return idFilters.computeIfAbsent(month, fileStorageService::loadOrderIdFilter);
+    }
+
+    // Partitions holding orders that are not yet in their partition file
+    Map<YearMonth, List<Order>> dirtyPartitions() {
+        Map<YearMonth, List<Order>> partitions = new TreeMap<>();
+        dirty.forEach(month -> partitions.put(month, new ArrayList<>(partition(month))));
+        return partitions;
+    }
+
+    OrderManifest getManifest() { return manifest; }
+
+    void markClean() {
+        dirty.forEach(idFilters::remove); // rewritten along with their partitions
+        dirty.clear();
+        evictOverBudget();
+    }
+
+    private TreeSet<YearMonth> months() {
+        TreeSet<YearMonth> months = new TreeSet<>();
+        manifest.getPartitions().keySet().forEach(month -> months.add(YearMonth.parse(month)));
+        months.addAll(loaded.keySet());
+        months.add(currentMonth);
+        return months;
+    }
+
+    private List<Order> partition(YearMonth month) {
+        if (month.equals(currentMonth)) {
+            return current;
+        }
+        List<Order> orders = loaded.get(month);
+        if (orders == null) {
+            orders = manifest.hasPartition(month)
+                    ? fileStorageService.loadOrderPartition(month)
+                    : new ArrayList<>();
+            cache(month, orders);
+        }
+        return orders;
+    }
+
+    private void cache(YearMonth month, List<Order> orders) {
+        loaded.put(month, orders);
+        residentOrderCount += orders.size();
+    }
+
+    private void evictOverBudget() {
+        Iterator<Map.Entry<YearMonth, List<Order>>> eldest = loaded.entrySet().iterator();
+        while (residentOrderCount > residentOrderBudget && eldest.hasNext()) {
+            Map.Entry<YearMonth, List<Order>> entry = eldest.next();
+            if (!dirty.contains(entry.getKey())) {
+                residentOrderCount -= entry.getValue().size();
+                eldest.remove();
+            }
+        }
+    }
+}
@@ -1,33 +1,133 @@
 package com.musicshop.services.order;
 
+import com.musicshop.Config;
 import com.musicshop.models.sales.Order;
 import com.musicshop.models.sales.OrderStatuses;
 import com.musicshop.models.user.User;
 import com.musicshop.services.storage.FileStorageService;
+import com.musicshop.services.storage.OrderManifest;
 
+import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.stream.Collectors;
 
 public class OrderService implements OrderServiceInterface {
     private final List<Order> orders;
+    private final Map<String, Order> ordersById;
+    private final OrderPartitionStore partitions; // null unless orders are partitioned by month
     private final FileStorageService fileStorageService;
+    private final boolean journaled;
+    private final int snapshotInterval;
 
     public OrderService(FileStorageService fileStorageService) {
+        this(fileStorageService, Config.getOrderJournal(), Config.getOrderSnapshotInterval(),
+                Config.getOrderPartitioning(), Config.getOrderPartitionBudget());
+    }
+
+    public OrderService(FileStorageService fileStorageService, boolean journaled, int snapshotInterval) {
+        this(fileStorageService, journaled, snapshotInterval, false, 0);
+    }
+
+    public OrderService(FileStorageService fileStorageService, boolean journaled, int snapshotInterval,
+                        boolean partitioned, int partitionBudget) {
         this.fileStorageService = fileStorageService;
-        this.orders = fileStorageService.loadOrders();
+        this.journaled = journaled;
+        this.snapshotInterval = Math.max(1, snapshotInterval);
+        this.orders = new ArrayList<>();
+        this.ordersById = new HashMap<>();
+        if (partitioned) {
+            this.partitions = openPartitions(partitionBudget);
+        } else {
+            this.partitions = null;
+            // snapshot + journal tail, indexed in the same pass
+            fileStorageService.streamOrders(this::indexOrder);
+        }
+    }
+
+    // only the newest partition is loaded here, plus whatever the journal tail touches
+    private OrderPartitionStore openPartitions(int partitionBudget) {
+        OrderManifest manifest = fileStorageService.hasOrderPartitions()
+                ? fileStorageService.loadOrderManifest()
+                : fileStorageService.migrateOrdersToPartitions();
+        if (manifest == null) {
+            throw new IllegalStateException("Could not open the monthly order partitions");
+        }
+        OrderPartitionStore store = new OrderPartitionStore(fileStorageService, manifest, partitionBudget);
+        fileStorageService.streamOrderJournal(order -> {
+            if (!store.contains(order)) {
+                store.add(order);
+            }
+        });
+        return store;
+    }
+
+    private void indexOrder(Order order) {
+        orders.add(order);
+        ordersById.put(order.getOrderId(), order);
     }
 
     @Override
     public void processOrder(Order order, User employee) {
         order.setProcessor(employee.getId(), employee.getUsername());
         order.setStatus(OrderStatuses.PROCESSED); // dafault
-        orders.add(order);
-        fileStorageService.saveOrders(orders);
+        if (partitions != null) {
+            partitions.add(order);
+        } else {
+            indexOrder(order);
+        }
+        persistOrder(order);
         System.out.println("Order processed by employee: " + employee.getUsername());
     }
 
+    // journaled mode appends one record per sale and only rewrites the
+    // snapshot every snapshotInterval orders
+    private void persistOrder(Order order) {
+        if (!journaled) {
+            checkpoint();
+            return;
+        }
+        fileStorageService.appendOrder(order);
+        if (fileStorageService.getJournaledOrderCount() >= snapshotInterval) {
+            checkpoint();
+        }
+    }
+
+    // partitioned mode only rewrites the months that received orders
+    private void checkpoint() {
+        if (partitions != null) {
+            fileStorageService.checkpointOrderPartitions(partitions.dirtyPartitions(), partitions.getManifest());
+            partitions.markClean();
+        } else if (journaled) {
+            fileStorageService.checkpointOrders(orders);
+        } else {
+            fileStorageService.saveOrders(orders);
+        }
+    }
+
     @Override
     public List<Order> getAllOrders() {
-        return new ArrayList<>(orders);
+        return partitions != null ? partitions.all() : new ArrayList<>(orders);
+    }
+
+    @Override
+    public List<Order> getOrdersBetween(LocalDateTime startDate, LocalDateTime endDate) {
+        if (partitions != null) {
+            return partitions.between(startDate, endDate);
+        }
+        return orders.stream()
+                .filter(order -> !order.getOrderDate().isBefore(startDate) && !order.getOrderDate().isAfter(endDate))
+                .collect(Collectors.toList());
+    }
+
+    @Override
+    public Optional<Order> findOrderById(String orderId) {
+        if (partitions != null) {
+            return partitions.findById(orderId);
+        }
+        return Optional.ofNullable(ordersById.get(orderId));
     }
 }
@@ -2,9 +2,13 @@ package com.musicshop.services.order;
 
 import com.musicshop.models.sales.Order;
 import com.musicshop.models.user.User;
+import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Optional;
 
 public interface OrderServiceInterface {
     void processOrder(Order order, User employee);
     List<Order> getAllOrders();
+    List<Order> getOrdersBetween(LocalDateTime startDate, LocalDateTime endDate);
+    Optional<Order> findOrderById(String orderId);
 }
\ No newline at end of file
@@ -0,0 +1,169 @@
+package com.musicshop.services.storage;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+// Crash-safe file replacement: contents go to a temp file next to the target,
+// are forced to disk and then atomically renamed over the target, so a crash
+// leaves either the old or the new file, never a half-written one.
+//
+// Writers that arrive while a commit is in progress (or within the commit
+// window) are grouped: one thread writes the whole batch, requests for the
+// same file collapse into a single write + fsync, and the directory entries
+// are synced once per batch. Every caller returns only after its data is durable.
+public class AtomicFileWriter {
+    private static final Logger logger = Logger.getLogger(AtomicFileWriter.class.getName());
+    private static final String TEMP_SUFFIX = ".tmp";
+
+    private final long commitWindowMillis;
+    private Map<Path, PendingWrite> pending = new LinkedHashMap<>();
+    private boolean committing;
+    private final AtomicLong batches = new AtomicLong();
+
+    private static class PendingWrite {
+        private byte[] contents;
+        private final CompletableFuture<Void> done = new CompletableFuture<>();
+
+        private PendingWrite(byte[] contents) { this.contents = contents; }
+    }
+
+    public AtomicFileWriter(long commitWindowMillis) {
+        this.commitWindowMillis = commitWindowMillis;
+    }
+
+    // Durably replace target with contents; blocks until the group commit holding it is done
+    public void write(Path target, byte[] contents) throws IOException {
+        PendingWrite write;
+        boolean leader;
+        synchronized (this) {
+            write = pending.get(target);
+            if (write == null) {
+                write = new PendingWrite(contents);
+                pending.put(target, write);
+            } else {
+                write.contents = contents; // newer contents win, both callers share the commit
+            }
+            leader = !committing;
+            committing = true;
+        }
+        if (leader) {
+            commitPending();
+        }
+        try {
+            write.done.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof UncheckedIOException io) {
+                throw io.getCause();
+            }
+            throw e;
+        }
+    }
+
+    // Number of group commits so far; each one syncs its files and directories once
+    public long getBatchCount() { return batches.get(); }
+
+    // leader loop: wait one window for followers, then keep committing batches until no
+    // writer is waiting. Writes that arrived during a commit go out right away, without
+    // another window. If a commit fails unexpectedly every waiting writer is released
+    // with the failure, so the next write() starts over with a fresh leader.
+    private void commitPending() {
+        Map<Path, PendingWrite> batch = Map.of();
+        try {
+            waitForCommitWindow();
+            while (true) {
+                synchronized (this) {
+                    if (pending.isEmpty()) {
+                        committing = false;
+                        return;
+                    }
+                    batch = pending;
+                    pending = new LinkedHashMap<>();
+                }
+                commitBatch(batch);
+            }
+        } catch (RuntimeException | Error e) {
+            Map<Path, PendingWrite> abandoned;
+            synchronized (this) {
+                abandoned = pending;
+                pending = new LinkedHashMap<>();
+                committing = false;
+            }
+            for (PendingWrite write : batch.values()) {
+                write.done.completeExceptionally(e);
+            }
+            for (PendingWrite write : abandoned.values()) {
+                write.done.completeExceptionally(e);
+            }
+            throw e;
+        }
+    }
+
+    private void waitForCommitWindow() {
+        if (commitWindowMillis <= 0) {
+            return;
+        }
+        try {
+            Thread.sleep(commitWindowMillis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void commitBatch(Map<Path, PendingWrite> batch) {
+        batches.incrementAndGet();
+        Set<Path> directories = new LinkedHashSet<>();
+        for (Map.Entry<Path, PendingWrite> entry : batch.entrySet()) {
+            try {
+                replace(entry.getKey(), entry.getValue().contents);
+                directories.add(entry.getKey().toAbsolutePath().getParent());
+            } catch (IOException e) {
+                entry.getValue().done.completeExceptionally(new UncheckedIOException(e));
+            }
+        }
+        // the renames are only durable once the directories themselves are synced
+        directories.forEach(AtomicFileWriter::syncDirectory);
+        batch.values().forEach(write -> write.done.complete(null));
+    }
+
+    private static void replace(Path target, byte[] contents) throws IOException {
+        Path temp = target.resolveSibling(target.getFileName() + TEMP_SUFFIX);
+        try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            ByteBuffer buffer = ByteBuffer.wrap(contents);
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            channel.force(true);
+        }
+        try {
+            Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    // not every platform lets a directory be opened for syncing (e.g. Windows)
+    private static void syncDirectory(Path directory) {
+        try (FileChannel channel = FileChannel.open(directory, StandardOpenOption.READ)) {
+            channel.force(true);
+        } catch (IOException e) {
+            logger.log(Level.FINE, "Directory sync not supported for " + directory, e);
+        }
+    }
+}
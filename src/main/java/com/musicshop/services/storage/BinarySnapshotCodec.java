@@ -0,0 +1,360 @@
+package com.musicshop.services.storage;
+
+import com.musicshop.models.music.Album;
+import com.musicshop.models.music.Instrument;
+import com.musicshop.models.music.MusicItem;
+import com.musicshop.models.sales.CartLine;
+import com.musicshop.models.sales.Order;
+import com.musicshop.models.sales.OrderStatuses;
+import com.musicshop.models.user.Customer;
+import com.musicshop.models.user.User;
+import com.musicshop.models.user.UserRole;
+import com.musicshop.models.user.WorkLog;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+// Compact binary snapshot format for the dataset files.
+//
+// Layout: magic, format version, dataset name, schema header (the field names
+// of the record codec), record count, then one length-prefixed record per
+// element. A file whose schema header matches neither the codec nor one of its
+// legacy readers is rejected on load; there is no field-level tolerance. The
+// length prefix lets the decoder read each record into one reused buffer.
+public final class BinarySnapshotCodec {
+    private static final int MAGIC = 0x4D534850; // "MSHP"
+    private static final short FORMAT_VERSION = 1;
+    private static final byte ALBUM = 0;
+    private static final byte INSTRUMENT = 1;
+
+    private BinarySnapshotCodec() { }
+
+    // Decodes one record type field by field, in schema order
+    public interface RecordReader<T> {
+        String name();
+        List<String> fields();
+        T read(ByteBuffer in);
+    }
+
+    // A reader that can also encode its records, for the schemas that are still written
+    public interface RecordCodec<T> extends RecordReader<T> {
+        void write(DataOutputStream out, T value) throws IOException;
+    }
+
+    public static byte[] encode(RecordCodec<?> codec, List<?> records) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.writeInt(MAGIC);
+        out.writeShort(FORMAT_VERSION);
+        writeString(out, codec.name());
+        out.writeShort(codec.fields().size());
+        for (String field : codec.fields()) {
+            writeString(out, field);
+        }
+        out.writeInt(records.size());
+
+        ByteArrayOutputStream recordBytes = new ByteArrayOutputStream(256);
+        DataOutputStream recordOut = new DataOutputStream(recordBytes);
+        for (Object record : records) {
+            recordBytes.reset();
+            writeRecord(codec, recordOut, record);
+            out.writeInt(recordBytes.size());
+            recordBytes.writeTo(out);
+        }
+        out.flush();
+        return bytes.toByteArray();
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> void writeRecord(RecordCodec<T> codec, DataOutputStream out, Object record) throws IOException {
+        codec.write(out, (T) record);
+    }
+
+    // Decode records one at a time, the record buffer is reused between records
+    public static <T> void decode(Path file, RecordCodec<T> codec, Consumer<T> consumer) throws IOException {
+        try (InputStream stream = Files.newInputStream(file);
+             DataInputStream in = new DataInputStream(new BufferedInputStream(stream, 64 * 1024))) {
+            RecordReader<T> reader = readHeader(in, codec, file);
+            int count = in.readInt();
+            byte[] buffer = new byte[256];
+            for (int i = 0; i < count; i++) {
+                int length = in.readInt();
+                if (length > buffer.length) {
+                    buffer = new byte[Math.max(length, buffer.length * 2)];
+                }
+                in.readFully(buffer, 0, length);
+                consumer.accept(reader.read(ByteBuffer.wrap(buffer, 0, length)));
+            }
+        } catch (EOFException e) {
+            throw new IOException("Truncated snapshot " + file, e);
+        }
+    }
+
+    // Returns the reader matching the file's schema: the current codec, or a legacy reader for it
+    @SuppressWarnings("unchecked")
+    private static <T> RecordReader<T> readHeader(DataInputStream in, RecordCodec<T> codec, Path file) throws IOException {
+        if (in.readInt() != MAGIC) {
+            throw new IOException(file + " is not a binary snapshot");
+        }
+        short version = in.readShort();
+        if (version != FORMAT_VERSION) {
+            throw new IOException("Unsupported snapshot version " + version + " in " + file);
+        }
+        String name = readString(in);
+        int fieldCount = in.readShort();
+        List<String> fields = new ArrayList<>(fieldCount);
+        for (int i = 0; i < fieldCount; i++) {
+            fields.add(readString(in));
+        }
+        if (codec.name().equals(name) && codec.fields().equals(fields)) {
+            return codec;
+        }
+        if (codec == ORDER && LEGACY_ORDER.fields().equals(fields)) {
+            return (RecordReader<T>) LEGACY_ORDER;
+        }
+        throw new IOException("Snapshot schema " + name + fields + " does not match " + codec.name() + codec.fields());
+    }
+
+    ////////////////////
+    // RECORD CODECS  //
+    ////////////////////
+
+    public static final RecordCodec<MusicItem> MUSIC_ITEM = new RecordCodec<>() {
+        private final List<String> fields = List.of("kind", "name", "price", "quantity", "barcode", "type", "artist", "year");
+
+        public String name() { return "musicItem"; }
+        public List<String> fields() { return fields; }
+
+        public void write(DataOutputStream out, MusicItem item) throws IOException {
+            boolean album = item instanceof Album;
+            out.writeByte(album ? ALBUM : INSTRUMENT);
+            writeString(out, item.getName());
+            out.writeDouble(item.getPrice());
+            out.writeInt(item.getQuantity());
+            writeString(out, item.getBarcode());
+            writeString(out, item.getType());
+            writeString(out, album ? ((Album) item).getArtist() : null);
+            out.writeInt(album ? ((Album) item).getYear() : 0);
+        }
+
+        public MusicItem read(ByteBuffer in) {
+            byte kind = in.get();
+            String name = readString(in);
+            double price = in.getDouble();
+            int quantity = in.getInt();
+            String barcode = readString(in);
+            String type = readPooledString(in);
+            String artist = readPooledString(in);
+            int year = in.getInt();
+            if (kind == ALBUM) {
+                return new Album(name, price, artist, year, type, quantity, barcode);
+            }
+            return new Instrument(name, price, type, quantity, barcode);
+        }
+    };
+
+    public static final RecordCodec<Order> ORDER = new RecordCodec<>() {
+        private final List<String> fields = List.of("orderId", "customerId", "customerName", "cartLines:cartLine",
+                "totalAmount", "orderDate", "processedById", "processedBy", "status");
+
+        public String name() { return "order"; }
+        public List<String> fields() { return fields; }
+
+        public void write(DataOutputStream out, Order order) throws IOException {
+            writeOrderHeader(out, order);
+            List<CartLine> cartLines = order.getCartLines() != null ? order.getCartLines() : List.of();
+            out.writeInt(cartLines.size());
+            for (CartLine line : cartLines) {
+                writeString(out, line.getSku());
+                writeString(out, line.getName());
+                writeString(out, line.getType());
+                out.writeDouble(line.getUnitPrice());
+                out.writeInt(line.getQuantity());
+            }
+            writeOrderTrailer(out, order);
+        }
+
+        public Order read(ByteBuffer in) {
+            Order order = readOrderHeader(in);
+            int lineCount = in.getInt();
+            List<CartLine> cartLines = new ArrayList<>(lineCount);
+            for (int i = 0; i < lineCount; i++) {
+                cartLines.add(new CartLine(readPooledString(in), readPooledString(in), readPooledString(in), in.getDouble(), in.getInt()));
+            }
+            order.setCartLines(cartLines);
+            return readOrderTrailer(in, order);
+        }
+    };
+
+    // Snapshots written before cart lines held one full music item per unit sold
+    private static final RecordReader<Order> LEGACY_ORDER = new RecordReader<>() {
+        private final List<String> fields = List.of("orderId", "customerId", "customerName", "cartItems:musicItem",
+                "totalAmount", "orderDate", "processedById", "processedBy", "status");
+
+        public String name() { return "order"; }
+        public List<String> fields() { return fields; }
+
+        public Order read(ByteBuffer in) {
+            Order order = readOrderHeader(in);
+            order.setCartLines(new ArrayList<>());
+            int itemCount = in.getInt();
+            for (int i = 0; i < itemCount; i++) {
+                order.addItem(MUSIC_ITEM.read(in));
+            }
+            return readOrderTrailer(in, order); // restores the stored total
+        }
+    };
+
+    private static void writeOrderHeader(DataOutputStream out, Order order) throws IOException {
+        writeString(out, order.getOrderId());
+        Customer customer = order.getCustomer();
+        writeString(out, customer != null ? customer.getId() : null);
+        writeString(out, customer != null ? customer.getName() : null);
+    }
+
+    private static void writeOrderTrailer(DataOutputStream out, Order order) throws IOException {
+        out.writeDouble(order.getTotalAmount());
+        writeDateTime(out, order.getOrderDate());
+        writeString(out, order.getProcessedById());
+        writeString(out, order.getProcessedBy());
+        writeString(out, order.getStatus() != null ? order.getStatus().name() : null);
+    }
+
+    private static Order readOrderHeader(ByteBuffer in) {
+        Order order = new Order();
+        order.setOrderId(readString(in));
+        String customerId = readPooledString(in);
+        String customerName = readPooledString(in);
+        if (customerId != null || customerName != null) {
+            order.setCustomer(new Customer(customerId, customerName));
+        }
+        return order;
+    }
+
+    private static Order readOrderTrailer(ByteBuffer in, Order order) {
+        order.setTotalAmount(in.getDouble());
+        order.setOrderDate(readDateTime(in));
+        order.setProcessedById(readPooledString(in));
+        order.setProcessedBy(readPooledString(in));
+        String status = readString(in);
+        order.setStatus(status != null ? OrderStatuses.valueOf(status) : null);
+        return order;
+    }
+
+    public static final RecordCodec<User> USER = new RecordCodec<>() {
+        private final List<String> fields = List.of("id", "username", "password", "role", "active", "lastLogin");
+
+        public String name() { return "user"; }
+        public List<String> fields() { return fields; }
+
+        public void write(DataOutputStream out, User user) throws IOException {
+            writeString(out, user.getId());
+            writeString(out, user.getUsername());
+            writeString(out, user.getPassword()); // already a BCrypt hash
+            writeString(out, user.getRole() != null ? user.getRole().name() : null);
+            out.writeBoolean(user.isActive());
+            writeDateTime(out, user.getLastLogin());
+        }
+
+        public User read(ByteBuffer in) {
+            User user = new User();
+            user.setId(readString(in));
+            user.setUsername(readString(in));
+            user.setPassword(readString(in));
+            String role = readString(in);
+            user.setRole(role != null ? UserRole.valueOf(role) : null);
+            user.setActive(in.get() != 0);
+            user.setLastLogin(readDateTime(in));
+            return user;
+        }
+    };
+
+    public static final RecordCodec<WorkLog> WORK_LOG = new RecordCodec<>() {
+        private final List<String> fields = List.of("userId", "checkInTime", "checkOutTime");
+
+        public String name() { return "workLog"; }
+        public List<String> fields() { return fields; }
+
+        public void write(DataOutputStream out, WorkLog workLog) throws IOException {
+            writeString(out, workLog.getUserId());
+            writeDateTime(out, workLog.getCheckInTime());
+            writeDateTime(out, workLog.getCheckOutTime());
+        }
+
+        public WorkLog read(ByteBuffer in) {
+            return new WorkLog(readPooledString(in), readDateTime(in), readDateTime(in));
+        }
+    };
+
+    ////////////////////
+    // FIELD ENCODING //
+    ////////////////////
+
+    // strings are a length (-1 for null) followed by UTF-8 bytes
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        if (value == null) {
+            out.writeInt(-1);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readString(ByteBuffer in) {
+        int length = in.getInt();
+        if (length < 0) {
+            return null;
+        }
+        String value = new String(in.array(), in.arrayOffset() + in.position(), length, StandardCharsets.UTF_8);
+        in.position(in.position() + length);
+        return value;
+    }
+
+    // low-cardinality fields share one instance per distinct value, see StringPool
+    private static String readPooledString(ByteBuffer in) {
+        return StringPool.canonical(readString(in));
+    }
+
+    private static String readString(DataInputStream in) throws IOException {
+        int length = in.readInt();
+        if (length < 0) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    // date-times are a presence flag, then epoch seconds (UTC) and nanos
+    private static void writeDateTime(DataOutputStream out, LocalDateTime value) throws IOException {
+        out.writeBoolean(value != null);
+        if (value != null) {
+            out.writeLong(value.toEpochSecond(ZoneOffset.UTC));
+            out.writeInt(value.getNano());
+        }
+    }
+
+    private static LocalDateTime readDateTime(ByteBuffer in) {
+        if (in.get() == 0) {
+            return null;
+        }
+        long epochSecond = in.getLong();
+        int nano = in.getInt();
+        return LocalDateTime.ofEpochSecond(epochSecond, nano, ZoneOffset.UTC);
+    }
+}
@@ -1,20 +1,30 @@
 package com.musicshop.services.storage;
 
 import com.fasterxml.jackson.databind.SerializationFeature;
+import com.musicshop.Config;
 import com.musicshop.models.sales.Order;
 import com.musicshop.models.music.MusicItem;
 import com.fasterxml.jackson.databind.ObjectMapper;
-import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.ObjectReader;
 import com.musicshop.models.user.User;
 import com.musicshop.models.user.WorkLog;
 import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
 
 import java.io.File;
 import java.io.IOException;
+import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.time.YearMonth;
 import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.function.Consumer;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -24,79 +34,424 @@ public class FileStorageService {
     private static final String ORDERS_FILE_NAME = "orders.json";
     private static final String USERS_FILE_NAME = "users.json";
     private static final String WORKLOGS_FILE_NAME = "worklogs.json";
+    private static final String ORDERS_JOURNAL_FILE_NAME = "orders.journal";
+    private static final String ORDERS_MAPPED_FILE_NAME = "orders.idx";
+    private static final String ORDER_PARTITION_DIRECTORY = "orders";
+    private static final String ORDER_MANIFEST_FILE_NAME = ORDER_PARTITION_DIRECTORY + "/manifest.json";
+    private static final String BINARY_FILE_EXTENSION = ".bin";
+    private static final List<String> DATASET_FILE_NAMES =
+            List.of(INVENTORY_FILE_NAME, ORDERS_FILE_NAME, USERS_FILE_NAME, WORKLOGS_FILE_NAME);
 
     private static final Logger logger = Logger.getLogger(FileStorageService.class.getName());
     private final ObjectMapper objectMapper;
+    private final Path dataDirectory;
+    private final OrderJournal orderJournal;
+    private final WriteBehindFlusher flusher; // null when saves are synchronous
+    private final AtomicFileWriter fileWriter;
+    private final StorageFormat format;
 
     public FileStorageService() {
+        this(Paths.get(DATA_DIRECTORY));
+    }
+
+    // data directory can be overridden, e.g. to keep tests away from the real data
+    public FileStorageService(Path dataDirectory) {
+        this(dataDirectory, Config.getWriteBehindWindowMillis());
+    }
+
+    // a window of 0 disables write-behind and saves on the calling thread
+    public FileStorageService(Path dataDirectory, long writeBehindWindowMillis) {
+        this(dataDirectory, writeBehindWindowMillis, Config.getStorageFormat());
+    }
+
+    public FileStorageService(Path dataDirectory, long writeBehindWindowMillis, StorageFormat format) {
+        this.dataDirectory = dataDirectory.toAbsolutePath();
+        this.format = format;
         this.objectMapper = new ObjectMapper();
         objectMapper.registerModule(new JavaTimeModule());
+        objectMapper.registerModule(new StringPoolModule());
         objectMapper.enable(SerializationFeature.INDENT_OUTPUT);
         objectMapper.disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+        this.orderJournal = new OrderJournal(getFilePath(ORDERS_JOURNAL_FILE_NAME), objectMapper);
+        this.fileWriter = new AtomicFileWriter(Config.getGroupCommitWindowMillis());
+        this.flusher = writeBehindWindowMillis > 0
+                ? new WriteBehindFlusher(writeBehindWindowMillis, this::saveData)
+                : null;
         logger.setLevel(Level.WARNING);
     }
 
     // helper method to load data from a JSON file into a list
-    private <T> List<T> loadData(String fileName, TypeReference<List<T>> typeReference) {
-        try {
-            File file = getFilePath(fileName).toFile();
-            if (!file.exists()) {
-                return new ArrayList<>();
+    private <T> List<T> loadData(String fileName, Class<T> type) {
+        List<T> data = new ArrayList<>();
+        streamData(fileName, type, data::add);
+        return data;
+    }
+
+    // helper method to stream a dataset in the configured format. A binary
+    // snapshot that doesn't exist yet falls back to the JSON file, so switching
+    // formats migrates each dataset on its next save.
+    private <T> void streamData(String fileName, Class<T> type, Consumer<T> consumer) {
+        flush(fileName); // read your own writes
+        if (format == StorageFormat.BINARY && getBinaryFilePath(fileName).toFile().exists()) {
+            streamBinary(fileName, consumer);
+        } else {
+            streamJson(fileName, type, consumer);
+        }
+    }
+
+    // helper method to stream a JSON array one element at a time, so only the
+    // record currently being parsed is materialized besides what the consumer keeps
+    private <T> void streamJson(String fileName, Class<T> type, Consumer<T> consumer) {
+        File file = getFilePath(fileName).toFile();
+        if (!file.exists()) {
+            return;
+        }
+        try (JsonParser parser = objectMapper.getFactory().createParser(file)) {
+            if (parser.nextToken() != JsonToken.START_ARRAY) {
+                logger.severe(fileName + " does not contain a JSON array");
+                return;
+            }
+            ObjectReader reader = objectMapper.readerFor(type);
+            while (parser.nextToken() == JsonToken.START_OBJECT) {
+                consumer.accept(reader.readValue(parser));
             }
-            return objectMapper.readValue(file, typeReference);
         } catch (IOException e) {
             logger.log(Level.SEVERE, "Error loading data from " + fileName, e);
-            return new ArrayList<>();
         }
     }
 
-    // helper method to save data to a JSON file
-    private <T> void saveData(String fileName, List<T> data) {
+    @SuppressWarnings("unchecked")
+    private <T> void streamBinary(String fileName, Consumer<T> consumer) {
         try {
-            objectMapper.writeValue(getFilePath(fileName).toFile(), data);
+            BinarySnapshotCodec.decode(getBinaryFilePath(fileName),
+                    (BinarySnapshotCodec.RecordCodec<T>) getCodec(fileName), consumer);
+        } catch (IOException e) {
+            logger.log(Level.SEVERE, "Error loading binary snapshot of " + fileName, e);
+        }
+    }
+
+    // helper method to durably replace a dataset file, returns false if the write failed
+    private <T> boolean saveData(String fileName, List<T> data) {
+        return format == StorageFormat.BINARY ? saveBinary(fileName, data) : saveJson(fileName, data);
+    }
+
+    private <T> boolean saveJson(String fileName, List<T> data) {
+        try {
+            fileWriter.write(getFilePath(fileName), objectMapper.writeValueAsBytes(data));
             logger.info(fileName + " saved to JSON file.");
+            return true;
         } catch (IOException e) {
             logger.log(Level.SEVERE, "Error saving data to " + fileName, e);
+            return false;
+        }
+    }
+
+    private <T> boolean saveBinary(String fileName, List<T> data) {
+        try {
+            fileWriter.write(getBinaryFilePath(fileName), BinarySnapshotCodec.encode(getCodec(fileName), data));
+            logger.info(fileName + " saved to binary snapshot.");
+            return true;
+        } catch (IOException e) {
+            logger.log(Level.SEVERE, "Error saving binary snapshot of " + fileName, e);
+            return false;
+        }
+    }
+
+    // helper method for dataset saves: write-behind when enabled, otherwise immediate.
+    // The list is copied so later mutations by the caller can't race the flusher.
+    private <T> void scheduleSave(String fileName, List<T> data) {
+        if (flusher == null) {
+            saveData(fileName, data);
+        } else {
+            flusher.markDirty(fileName, List.copyOf(data)); // no copy for an already immutable snapshot
+        }
+    }
+
+    // helper method to write a single dataset's pending changes now
+    private void flush(String fileName) {
+        if (flusher != null) {
+            flusher.flush(fileName);
+        }
+    }
+
+    // Write all pending changes now; call on shutdown or before anything that needs them on disk
+    public void flush() {
+        if (flusher != null) {
+            flusher.flush();
         }
     }
 
+    ////////////////////////
+    // FORMAT CONVERTERS  //
+    ////////////////////////
+
+    // Write a binary snapshot of every dataset from its JSON file
+    public void convertJsonToBinary() {
+        for (String fileName : DATASET_FILE_NAMES) {
+            flush(fileName);
+            List<Object> data = new ArrayList<>();
+            streamJson(fileName, getCodecType(fileName), data::add);
+            saveBinary(fileName, data);
+        }
+    }
+
+    // Write the JSON file of every dataset from its binary snapshot
+    public void convertBinaryToJson() {
+        for (String fileName : DATASET_FILE_NAMES) {
+            flush(fileName);
+            if (!getBinaryFilePath(fileName).toFile().exists()) {
+                continue;
+            }
+            List<Object> data = new ArrayList<>();
+            streamBinary(fileName, data::add);
+            saveJson(fileName, data);
+        }
+    }
+
+    // helper method to pick the binary record codec of a dataset
+    private BinarySnapshotCodec.RecordCodec<?> getCodec(String fileName) {
+        if (fileName.startsWith(ORDER_PARTITION_DIRECTORY + "/")) {
+            return BinarySnapshotCodec.ORDER;
+        }
+        return switch (fileName) {
+            case INVENTORY_FILE_NAME -> BinarySnapshotCodec.MUSIC_ITEM;
+            case ORDERS_FILE_NAME -> BinarySnapshotCodec.ORDER;
+            case USERS_FILE_NAME -> BinarySnapshotCodec.USER;
+            case WORKLOGS_FILE_NAME -> BinarySnapshotCodec.WORK_LOG;
+            default -> throw new IllegalArgumentException("Unknown dataset " + fileName);
+        };
+    }
+
+    // helper method to get the JSON element type of a dataset
+    @SuppressWarnings("unchecked")
+    private Class<Object> getCodecType(String fileName) {
+        Class<?> type = switch (fileName) {
+            case INVENTORY_FILE_NAME -> MusicItem.class;
+            case ORDERS_FILE_NAME -> Order.class;
+            case USERS_FILE_NAME -> User.class;
+            case WORKLOGS_FILE_NAME -> WorkLog.class;
+            default -> throw new IllegalArgumentException("Unknown dataset " + fileName);
+        };
+        return (Class<Object>) type;
+    }
+
     ////////////////////////
     // LOADERS AND SAVERS //
     ////////////////////////
 
-    // Load orders from the orders JSON file
+    // Load orders from the orders JSON snapshot, then replay the journal tail on top of it
     public List<Order> loadOrders() {
+        List<Order> orders = new ArrayList<>();
+        streamOrders(orders::add);
+        return orders;
+    }
+
+    // Stream orders one at a time: the snapshot first, then the journal tail.
+    // A crash between writing the snapshot and truncating the journal leaves
+    // orders in both, so journal records already in the snapshot are skipped.
+    // Once orders are partitioned by month the partitions replace the snapshot.
+    public void streamOrders(Consumer<Order> consumer) {
+        Set<String> knownOrderIds = new HashSet<>();
+        Consumer<Order> snapshotConsumer = order -> {
+            knownOrderIds.add(order.getOrderId());
+            consumer.accept(order);
+        };
+        OrderManifest manifest = loadOrderManifest();
+        if (manifest == null) {
+            streamData(ORDERS_FILE_NAME, Order.class, snapshotConsumer);
+        } else {
+            manifest.getPartitions().keySet().forEach(month ->
+                    streamData(getPartitionFileName(YearMonth.parse(month)), Order.class, snapshotConsumer));
+        }
+        streamOrderJournal(order -> {
+            if (knownOrderIds.add(order.getOrderId())) {
+                consumer.accept(order);
+            }
+        });
+    }
+
+    // Stream only the journal tail, oldest first
+    public void streamOrderJournal(Consumer<Order> consumer) {
+        try {
+            orderJournal.replay(consumer);
+        } catch (IOException e) {
+            logger.log(Level.SEVERE, "Error replaying order journal", e);
+        }
+    }
+
+    // Append a single order to the journal instead of rewriting the whole history
+    public void appendOrder(Order order) {
+        try {
+            orderJournal.append(order);
+        } catch (IOException e) {
+            logger.log(Level.SEVERE, "Error appending order to journal", e);
+        }
+    }
+
+    // Fold the journal back into the orders snapshot
+    public void checkpointOrders(List<Order> orders) {
+        flush(ORDERS_FILE_NAME); // an older pending snapshot must not land after this one
+        if (!saveData(ORDERS_FILE_NAME, orders)) {
+            return; // keep the journal, it is still the only durable copy
+        }
+        try {
+            orderJournal.truncate();
+        } catch (IOException e) {
+            logger.log(Level.SEVERE, "Error truncating order journal", e);
+        }
+    }
+
+    ////////////////////////
+    // ORDER PARTITIONS   //
+    ////////////////////////
+
+    // True once orders have been split into monthly partitions
+    public boolean hasOrderPartitions() { return getFilePath(ORDER_MANIFEST_FILE_NAME).toFile().exists(); }
+
+    // Load the partition manifest, null while orders still live in a single snapshot
+    public OrderManifest loadOrderManifest() {
+        File file = getFilePath(ORDER_MANIFEST_FILE_NAME).toFile();
+        if (!file.exists()) {
+            return null;
+        }
+        try {
+            return objectMapper.readValue(file, OrderManifest.class);
+        } catch (IOException e) {
+            logger.log(Level.SEVERE, "Error loading order manifest", e);
+            return null;
+        }
+    }
+
+    // Load all orders of one month
+    public List<Order> loadOrderPartition(YearMonth month) {
+        return loadData(getPartitionFileName(month), Order.class);
+    }
+
+    // Write the given partitions and the manifest, then drop the journal they now contain
+    public void checkpointOrderPartitions(Map<YearMonth, List<Order>> partitions, OrderManifest manifest) {
+        if (!writeOrderPartitions(partitions, manifest)) {
+            return; // keep the journal, it is still the only durable copy
+        }
         try {
-            File file = getFilePath(ORDERS_FILE_NAME).toFile();
-            if (file.exists()) {
-                return objectMapper.readValue(file, objectMapper.getTypeFactory().constructCollectionType(List.class, Order.class));
+            orderJournal.truncate();
+        } catch (IOException e) {
+            logger.log(Level.SEVERE, "Error truncating order journal", e);
+        }
+    }
+
+    // Id filter of one month, rebuilt from the partition when it has none yet
+    // (partitions written before filters existed)
+    public OrderIdFilter loadOrderIdFilter(YearMonth month) {
+        Path file = getFilePath(getOrderIdFilterFileName(month));
+        if (file.toFile().exists()) {
+            try {
+                return OrderIdFilter.fromBytes(Files.readAllBytes(file));
+            } catch (IOException e) {
+                logger.log(Level.WARNING, "Error reading order id filter " + file + ", rebuilding it", e);
             }
+        }
+        List<String> orderIds = new ArrayList<>();
+        streamData(getPartitionFileName(month), Order.class, order -> orderIds.add(order.getOrderId()));
+        OrderIdFilter filter = OrderIdFilter.of(orderIds);
+        try {
+            fileWriter.write(file, filter.toBytes());
         } catch (IOException e) {
-            logger.log(Level.SEVERE, "Error loading orders", e);
+            logger.log(Level.WARNING, "Error writing order id filter " + file, e);
         }
-        return new ArrayList<>();
+        return filter;
+    }
+
+    // One-time split of the single orders snapshot into monthly partitions.
+    // orders.json is left in place as a backup but is no longer read, and the
+    // journal is kept since it is replayed on top of the partitions.
+    public OrderManifest migrateOrdersToPartitions() {
+        Map<YearMonth, List<Order>> partitions = new TreeMap<>();
+        streamData(ORDERS_FILE_NAME, Order.class, order ->
+                partitions.computeIfAbsent(YearMonth.from(order.getOrderDate()), month -> new ArrayList<>()).add(order));
+        OrderManifest manifest = new OrderManifest();
+        return writeOrderPartitions(partitions, manifest) ? manifest : null;
     }
 
+    // helper method to write partition files (and their id filters) first and the manifest that points at them last
+    private boolean writeOrderPartitions(Map<YearMonth, List<Order>> partitions, OrderManifest manifest) {
+        try {
+            Files.createDirectories(getFilePath(ORDER_PARTITION_DIRECTORY));
+            for (Map.Entry<YearMonth, List<Order>> partition : partitions.entrySet()) {
+                // the filter goes first: a crash in between leaves it with extra ids, never missing ones
+                List<String> orderIds = partition.getValue().stream().map(Order::getOrderId).toList();
+                fileWriter.write(getFilePath(getOrderIdFilterFileName(partition.getKey())), OrderIdFilter.of(orderIds).toBytes());
+                if (!saveData(getPartitionFileName(partition.getKey()), partition.getValue())) {
+                    return false;
+                }
+                manifest.putPartition(partition.getKey(), partition.getValue().size());
+            }
+            fileWriter.write(getFilePath(ORDER_MANIFEST_FILE_NAME), objectMapper.writeValueAsBytes(manifest));
+            return true;
+        } catch (IOException e) {
+            logger.log(Level.SEVERE, "Error writing order partitions", e);
+            return false;
+        }
+    }
+
+    // helper method to get a partition file name, e.g. orders/2024-11.json
+    private String getPartitionFileName(YearMonth month) { return ORDER_PARTITION_DIRECTORY + "/" + month + ".json"; }
+    // helper method to get the id filter next to a partition, e.g. orders/2024-11.ids
+    private String getOrderIdFilterFileName(YearMonth month) { return ORDER_PARTITION_DIRECTORY + "/" + month + ".ids"; }
+
+    // Open the memory-mapped order history for read-only analytics. The mapped
+    // file is rebuilt first if the snapshot or journal changed since it was written.
+    public MappedOrderStore openMappedOrders() throws IOException {
+        flush(ORDERS_FILE_NAME);
+        Path mappedFile = getFilePath(ORDERS_MAPPED_FILE_NAME);
+        long sourceModified = Math.max(getFilePath(ORDERS_FILE_NAME).toFile().lastModified(),
+                Math.max(getBinaryFilePath(ORDERS_FILE_NAME).toFile().lastModified(),
+                        Math.max(getFilePath(ORDER_MANIFEST_FILE_NAME).toFile().lastModified(),
+                                getFilePath(ORDERS_JOURNAL_FILE_NAME).toFile().lastModified())));
+        if (!mappedFile.toFile().exists() || mappedFile.toFile().lastModified() <= sourceModified) {
+            MappedOrderStore.build(mappedFile, this::streamOrders);
+        }
+        try {
+            return MappedOrderStore.open(mappedFile);
+        } catch (IOException e) {
+            // written by an older layout version, rebuild it once
+            MappedOrderStore.build(mappedFile, this::streamOrders);
+            return MappedOrderStore.open(mappedFile);
+        }
+    }
+
+    // Number of orders journaled since the last checkpoint
+    public int getJournaledOrderCount() { return orderJournal.size(); }
+
     // helper method to get the file path
-    private Path getFilePath(String fileName) { return Paths.get(DATA_DIRECTORY, fileName).toAbsolutePath(); }
+    private Path getFilePath(String fileName) { return dataDirectory.resolve(fileName); }
+    // helper method to get the binary snapshot path next to a JSON file, e.g. inventory.bin
+    private Path getBinaryFilePath(String fileName) {
+        return dataDirectory.resolve(fileName.replace(".json", BINARY_FILE_EXTENSION));
+    }
     // Save orders to the orders JSON file
-    public void saveOrders(List<Order> orders) { saveData(ORDERS_FILE_NAME, orders); }
+    public void saveOrders(List<Order> orders) { scheduleSave(ORDERS_FILE_NAME, orders); }
     // Load work logs from the work logs JSON file
-    public List<WorkLog> loadWorkLogs() { return loadData(WORKLOGS_FILE_NAME, new TypeReference<>() {}); }
+    public List<WorkLog> loadWorkLogs() { return loadData(WORKLOGS_FILE_NAME, WorkLog.class); }
+    // Stream work logs one at a time from the work logs JSON file
+    public void streamWorkLogs(Consumer<WorkLog> consumer) { streamData(WORKLOGS_FILE_NAME, WorkLog.class, consumer); }
     // Save work logs to the work logs JSON file
     public void saveWorkLogs(List<WorkLog> workLogs) {
-        saveData(WORKLOGS_FILE_NAME, workLogs);
+        scheduleSave(WORKLOGS_FILE_NAME, workLogs);
     }
     // Load users from the users JSON file
-    public List<User> loadUsers() { return loadData(USERS_FILE_NAME, new TypeReference<>() { }); }
+    public List<User> loadUsers() { return loadData(USERS_FILE_NAME, User.class); }
     // Save users to the users JSON file
     public void saveUsers(List<User> users) {
-        saveData(USERS_FILE_NAME, users);
+        scheduleSave(USERS_FILE_NAME, users);
     }
     // Load items from the inventory JSON file
-    public List<MusicItem> loadItems() { return loadData(INVENTORY_FILE_NAME, new TypeReference<>() { }); }
+    public List<MusicItem> loadItems() { return loadData(INVENTORY_FILE_NAME, MusicItem.class); }
     // Save items to the inventory JSON file
     public void saveItems(List<MusicItem> items) {
-        saveData(INVENTORY_FILE_NAME, items);
+        scheduleSave(INVENTORY_FILE_NAME, items);
+    }
+    // Parse one item written like an entry of the inventory JSON file
+    public MusicItem parseItem(String json) throws IOException {
+        return objectMapper.readValue(json, MusicItem.class);
     }
 }
\ No newline at end of file
@@ -0,0 +1,227 @@
+package com.musicshop.services.storage;
+
+import com.musicshop.models.sales.CartLine;
+import com.musicshop.models.sales.Order;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+// Read-only, memory-mapped order history for analytics-only processes.
+//
+// Fixed-layout file: a header, one 32-byte record per order, one 24-byte
+// record per cart line, then a string table, at most 2 GB (one mapping). Records reference strings
+// (processor ids, item names, types) by index; the table is decoded once on
+// open, so reading records through an OrderCursor allocates nothing.
+public class MappedOrderStore {
+    private static final int MAGIC = 0x4D534F58; // "MSOX"
+    private static final int VERSION = 2;
+    private static final int HEADER_SIZE = 32;
+    private static final int ORDER_RECORD_SIZE = 32;
+    private static final int LINE_RECORD_SIZE = 24;
+    private static final int NO_STRING = -1;
+    // a single MappedByteBuffer, and so the int offsets below, cover at most this many bytes
+    private static final long MAX_SIZE = Integer.MAX_VALUE;
+
+    // order record: orderDate (epoch seconds, UTC), total, processedById, processedBy, first line, line count
+    private static final int ORDER_DATE = 0;
+    private static final int ORDER_TOTAL = 8;
+    private static final int ORDER_PROCESSOR_ID = 16;
+    private static final int ORDER_PROCESSOR_NAME = 20;
+    private static final int ORDER_FIRST_LINE = 24;
+    private static final int ORDER_LINE_COUNT = 28;
+    // line record: name, type, unit price, quantity
+    private static final int LINE_NAME = 0;
+    private static final int LINE_TYPE = 4;
+    private static final int LINE_PRICE = 8;
+    private static final int LINE_QUANTITY = 16;
+
+    private final MappedByteBuffer buffer;
+    private final int orderCount;
+    private final int linesOffset;
+    private final String[] strings;
+
+    private MappedOrderStore(MappedByteBuffer buffer, int orderCount, int lineCount, String[] strings) {
+        this.buffer = buffer;
+        this.orderCount = orderCount;
+        this.linesOffset = HEADER_SIZE + orderCount * ORDER_RECORD_SIZE;
+        this.strings = strings;
+    }
+
+    public int size() { return orderCount; }
+
+    // A reusable view over one order record; move it with moveTo()
+    public OrderCursor cursor() { return new OrderCursor(); }
+
+    public class OrderCursor {
+        private int base;
+
+        public OrderCursor moveTo(int index) {
+            if (index < 0 || index >= orderCount) {
+                throw new IndexOutOfBoundsException("Order " + index + " of " + orderCount);
+            }
+            base = HEADER_SIZE + index * ORDER_RECORD_SIZE;
+            return this;
+        }
+
+        public long orderDateEpochSecond() { return buffer.getLong(base + ORDER_DATE); }
+        // allocates, prefer orderDateEpochSecond() in tight loops
+        public LocalDateTime orderDate() { return LocalDateTime.ofEpochSecond(orderDateEpochSecond(), 0, ZoneOffset.UTC); }
+        public double totalAmount() { return buffer.getDouble(base + ORDER_TOTAL); }
+        public String processedById() { return string(buffer.getInt(base + ORDER_PROCESSOR_ID)); }
+        public String processedBy() { return string(buffer.getInt(base + ORDER_PROCESSOR_NAME)); }
+        public int lineCount() { return buffer.getInt(base + ORDER_LINE_COUNT); }
+
+        public String lineName(int line) { return string(buffer.getInt(lineBase(line) + LINE_NAME)); }
+        public String lineType(int line) { return string(buffer.getInt(lineBase(line) + LINE_TYPE)); }
+        public double linePrice(int line) { return buffer.getDouble(lineBase(line) + LINE_PRICE); }
+        public int lineQuantity(int line) { return buffer.getInt(lineBase(line) + LINE_QUANTITY); }
+
+        private int lineBase(int line) {
+            return linesOffset + (buffer.getInt(base + ORDER_FIRST_LINE) + line) * LINE_RECORD_SIZE;
+        }
+    }
+
+    private String string(int index) { return index == NO_STRING ? null : strings[index]; }
+
+    ////////////////////////
+    // OPEN AND BUILD     //
+    ////////////////////////
+
+    public static MappedOrderStore open(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            if (channel.size() > MAX_SIZE) {
+                throw new IOException(file + " is larger than a mapped order store can be");
+            }
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            if (buffer.getInt(0) != MAGIC || buffer.getInt(4) != VERSION) {
+                throw new IOException(file + " is not a mapped order store");
+            }
+            int orderCount = buffer.getInt(8);
+            int lineCount = buffer.getInt(12);
+            int stringCount = buffer.getInt(16);
+            int stringsOffset = HEADER_SIZE + orderCount * ORDER_RECORD_SIZE + lineCount * LINE_RECORD_SIZE;
+
+            String[] strings = new String[stringCount];
+            ByteBuffer table = buffer.duplicate().position(stringsOffset);
+            for (int i = 0; i < stringCount; i++) {
+                byte[] bytes = new byte[table.getInt()];
+                table.get(bytes);
+                strings[i] = new String(bytes, StandardCharsets.UTF_8);
+            }
+            return new MappedOrderStore(buffer, orderCount, lineCount, strings);
+        }
+    }
+
+    // Build the store file from a stream of orders. Records go straight to disk: order records
+    // into a temp file after the header, line records into a scratch file that is appended once
+    // the order count is known, so only the string table is kept on the heap. The temp file is
+    // then moved over the target, so readers see the old store or the complete new one.
+    public static void build(Path file, Consumer<Consumer<Order>> orderSource) throws IOException {
+        Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+        Path lineFile = file.resolveSibling(file.getFileName() + ".lines");
+        Map<String, Integer> stringIndex = new HashMap<>();
+        List<String> strings = new ArrayList<>();
+        long[] counts = new long[2]; // orders, lines
+
+        try (FileChannel out = FileChannel.open(temp, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING);
+             FileChannel lineChannel = FileChannel.open(lineFile, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                     StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.DELETE_ON_CLOSE)) {
+            // the wrapping streams are only flushed, closing them would close the channels
+            DataOutputStream orders = new DataOutputStream(new BufferedOutputStream(Channels.newOutputStream(out.position(HEADER_SIZE)), 64 * 1024));
+            DataOutputStream lines = new DataOutputStream(new BufferedOutputStream(Channels.newOutputStream(lineChannel), 64 * 1024));
+
+            IOException[] failure = new IOException[1];
+            orderSource.accept(order -> {
+                if (failure[0] != null) {
+                    return;
+                }
+                try {
+                    List<CartLine> cartLines = order.getCartLines() != null ? order.getCartLines() : List.of();
+                    if (HEADER_SIZE + (counts[0] + 1) * ORDER_RECORD_SIZE + (counts[1] + cartLines.size()) * LINE_RECORD_SIZE > MAX_SIZE) {
+                        throw new IOException("Order history is too large for a mapped store (limit " + MAX_SIZE + " bytes)");
+                    }
+                    LocalDateTime orderDate = order.getOrderDate();
+                    orders.writeLong(orderDate != null ? orderDate.toEpochSecond(ZoneOffset.UTC) : 0L);
+                    orders.writeDouble(order.getTotalAmount());
+                    orders.writeInt(intern(order.getProcessedById(), stringIndex, strings));
+                    orders.writeInt(intern(order.getProcessedBy(), stringIndex, strings));
+                    orders.writeInt((int) counts[1]);
+                    orders.writeInt(cartLines.size());
+                    for (CartLine line : cartLines) {
+                        lines.writeInt(intern(line.getName(), stringIndex, strings));
+                        lines.writeInt(intern(line.getType(), stringIndex, strings));
+                        lines.writeDouble(line.getUnitPrice());
+                        lines.writeInt(line.getQuantity());
+                        lines.writeInt(0); // padding
+                    }
+                    counts[0]++;
+                    counts[1] += cartLines.size();
+                } catch (IOException e) {
+                    failure[0] = e;
+                }
+            });
+            if (failure[0] != null) {
+                throw failure[0];
+            }
+            orders.flush();
+            lines.flush();
+
+            long lineBytes = lineChannel.size();
+            for (long copied = 0; copied < lineBytes; ) {
+                copied += lineChannel.transferTo(copied, lineBytes - copied, out);
+            }
+            DataOutputStream table = new DataOutputStream(new BufferedOutputStream(Channels.newOutputStream(out), 64 * 1024));
+            for (String value : strings) {
+                byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+                table.writeInt(bytes.length);
+                table.write(bytes);
+            }
+            table.flush();
+            if (out.size() > MAX_SIZE) {
+                throw new IOException("Order history is too large for a mapped store (limit " + MAX_SIZE + " bytes)");
+            }
+
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE)
+                    .putInt(MAGIC).putInt(VERSION).putInt((int) counts[0]).putInt((int) counts[1]).putInt(strings.size());
+            out.write(header.clear(), 0);
+            out.force(true);
+        } catch (IOException e) {
+            Files.deleteIfExists(temp);
+            throw e;
+        }
+        try {
+            Files.move(temp, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    private static int intern(String value, Map<String, Integer> stringIndex, List<String> strings) {
+        if (value == null) {
+            return NO_STRING;
+        }
+        return stringIndex.computeIfAbsent(value, key -> {
+            strings.add(key);
+            return strings.size() - 1;
+        });
+    }
+}
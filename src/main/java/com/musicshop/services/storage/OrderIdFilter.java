@@ -0,0 +1,78 @@
+package com.musicshop.services.storage;
+
+import java.nio.ByteBuffer;
+import java.util.Collection;
+
+// Bloom filter over the order ids of one monthly partition, stored next to it
+// (orders/2024-11.ids). A lookup by id only reads the partitions whose filter
+// might contain the id; false positives cost one extra partition read.
+public final class OrderIdFilter {
+    private static final int BITS_PER_ID = 10;
+    private static final int HASHES = 7; // ~1% false positives at 10 bits per id
+
+    private final long[] bits;
+
+    private OrderIdFilter(long[] bits) {
+        this.bits = bits;
+    }
+
+    public static OrderIdFilter of(Collection<String> orderIds) {
+        OrderIdFilter filter = new OrderIdFilter(new long[Math.max(1, (orderIds.size() * BITS_PER_ID + 63) / 64)]);
+        orderIds.forEach(filter::add);
+        return filter;
+    }
+
+    public boolean mightContain(String orderId) {
+        long hash = hash(orderId);
+        for (int i = 0; i < HASHES; i++) {
+            int bit = bit(hash, i);
+            if ((bits[bit >>> 6] & (1L << bit)) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void add(String orderId) {
+        long hash = hash(orderId);
+        for (int i = 0; i < HASHES; i++) {
+            int bit = bit(hash, i);
+            bits[bit >>> 6] |= 1L << bit;
+        }
+    }
+
+    // i-th probe: h1 + i * h2, with h2 odd so the probes never all land on one bit
+    private int bit(long hash, int i) {
+        int h1 = (int) hash;
+        int h2 = (int) (hash >>> 32) | 1;
+        return Math.floorMod(h1 + i * h2, bits.length * 64);
+    }
+
+    // 64-bit FNV-1a with a final avalanche step (the MurmurHash3 finalizer), split into the two
+    // hashes of the double-hashing scheme. Similar ids (they share a prefix) must still spread.
+    private static long hash(String orderId) {
+        long hash = 0xcbf29ce484222325L;
+        for (int i = 0; i < orderId.length(); i++) {
+            hash ^= orderId.charAt(i);
+            hash *= 0x100000001b3L;
+        }
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        hash *= 0xc4ceb9fe1a85ec53L;
+        hash ^= hash >>> 33;
+        return hash;
+    }
+
+    public byte[] toBytes() {
+        ByteBuffer buffer = ByteBuffer.allocate(bits.length * Long.BYTES);
+        buffer.asLongBuffer().put(bits);
+        return buffer.array();
+    }
+
+    public static OrderIdFilter fromBytes(byte[] bytes) {
+        long[] bits = new long[Math.max(1, bytes.length / Long.BYTES)];
+        ByteBuffer.wrap(bytes).asLongBuffer().get(bits, 0, bytes.length / Long.BYTES);
+        return new OrderIdFilter(bits);
+    }
+}
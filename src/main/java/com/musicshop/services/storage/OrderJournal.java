@@ -0,0 +1,129 @@
+package com.musicshop.services.storage;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.musicshop.models.sales.Order;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.function.Consumer;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+// Append-only write-ahead log of processed orders.
+// One compact JSON record per line; the journal is folded back into the
+// orders snapshot on checkpoint and then truncated.
+public class OrderJournal {
+    private static final Logger logger = Logger.getLogger(OrderJournal.class.getName());
+
+    private final Path journalFile;
+    private final ObjectWriter writer;
+    private final ObjectReader reader;
+    private FileChannel channel;
+    private int recordCount;
+
+    public OrderJournal(Path journalFile, ObjectMapper objectMapper) {
+        this.journalFile = journalFile;
+        // one record per line, so never indent journal entries
+        this.writer = objectMapper.writerFor(Order.class).without(SerializationFeature.INDENT_OUTPUT);
+        this.reader = objectMapper.readerFor(Order.class);
+    }
+
+    // Append one order and force it to disk before returning
+    public synchronized void append(Order order) throws IOException {
+        byte[] record = writer.writeValueAsBytes(order);
+        ByteBuffer buffer = ByteBuffer.allocate(record.length + 1);
+        buffer.put(record).put((byte) '\n').flip();
+
+        FileChannel out = openChannel();
+        while (buffer.hasRemaining()) {
+            out.write(buffer);
+        }
+        out.force(false);
+        recordCount++;
+    }
+
+    // Replay every complete record in the journal, oldest first.
+    // A torn last line (crash mid-append) is logged and skipped.
+    public synchronized void replay(Consumer<Order> consumer) throws IOException {
+        recordCount = 0;
+        if (!Files.exists(journalFile)) {
+            return;
+        }
+        try (BufferedReader in = Files.newBufferedReader(journalFile, StandardCharsets.UTF_8)) {
+            String line;
+            int lineNumber = 0;
+            while ((line = in.readLine()) != null) {
+                lineNumber++;
+                if (line.isBlank()) {
+                    continue;
+                }
+                try {
+                    consumer.accept(reader.readValue(line));
+                    recordCount++;
+                } catch (IOException e) {
+                    logger.log(Level.WARNING, "Skipping unreadable journal record at line " + lineNumber, e);
+                }
+            }
+        }
+    }
+
+    // Drop all records; called once they are part of the snapshot
+    public synchronized void truncate() throws IOException {
+        closeChannel();
+        Files.deleteIfExists(journalFile);
+        recordCount = 0;
+    }
+
+    // Number of records appended since the last checkpoint
+    public synchronized int size() { return recordCount; }
+
+    public synchronized void close() throws IOException { closeChannel(); }
+
+    private FileChannel openChannel() throws IOException {
+        if (channel == null || !channel.isOpen()) {
+            channel = FileChannel.open(journalFile,
+                    StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+            dropTornTail(channel);
+        }
+        return channel;
+    }
+
+    // Cut a torn last line (crash mid-append) so the next record starts on
+    // its own line; replay already skips it, so nothing readable is lost.
+    // The channel is left positioned at the end of the file for appending.
+    private void dropTornTail(FileChannel out) throws IOException {
+        long size = out.size();
+        ByteBuffer one = ByteBuffer.allocate(1);
+        long end = size;
+        while (end > 0) {
+            one.clear();
+            out.read(one, end - 1);
+            if (one.get(0) == '\n') {
+                break;
+            }
+            end--;
+        }
+        if (end < size) {
+            logger.warning("Dropping " + (size - end) + " bytes of torn journal record");
+            out.truncate(end);
+            out.force(false);
+        }
+        out.position(end);
+    }
+
+    private void closeChannel() throws IOException {
+        if (channel != null) {
+            channel.close();
+            channel = null;
+        }
+    }
+}
@@ -0,0 +1,20 @@
+package com.musicshop.services.storage;
+
+import java.time.YearMonth;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+
+// Index of the monthly order partitions: partition month ("2024-11") -> order count
+public class OrderManifest {
+    private TreeMap<String, Integer> partitions = new TreeMap<>();
+
+    // json requires
+    public OrderManifest() { }
+
+    public NavigableMap<String, Integer> getPartitions() { return partitions; }
+    public void setPartitions(Map<String, Integer> partitions) { this.partitions = new TreeMap<>(partitions); }
+
+    public boolean hasPartition(YearMonth month) { return partitions.containsKey(month.toString()); }
+    public void putPartition(YearMonth month, int orderCount) { partitions.put(month.toString(), orderCount); }
+}
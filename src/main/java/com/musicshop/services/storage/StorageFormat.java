@@ -0,0 +1,7 @@
+package com.musicshop.services.storage;
+
+// On-disk format of the dataset snapshots
+public enum StorageFormat {
+    JSON,   // pretty-printed JSON, human readable
+    BINARY  // compact length-prefixed records, see BinarySnapshotCodec
+}
@@ -0,0 +1,31 @@
+package com.musicshop.services.storage;
+
+import java.util.concurrent.ConcurrentHashMap;
+
+// Canonical instances for low-cardinality strings read from the data files
+// (item types, artists, customer and employee names, user ids). Every loaded
+// record would otherwise hold its own copy of e.g. "album".
+// The pool stops growing at MAX_SIZE entries; values past that are returned as is.
+public final class StringPool {
+    private static final int MAX_SIZE = 100_000;
+    private static final ConcurrentHashMap<String, String> pool = new ConcurrentHashMap<>();
+
+    private StringPool() { }
+
+    public static String canonical(String value) {
+        if (value == null) {
+            return null;
+        }
+        String existing = pool.get(value);
+        if (existing != null) {
+            return existing;
+        }
+        if (pool.size() >= MAX_SIZE) {
+            return value;
+        }
+        existing = pool.putIfAbsent(value, value);
+        return existing != null ? existing : value;
+    }
+
+    public static int size() { return pool.size(); }
+}
@@ -0,0 +1,78 @@
+package com.musicshop.services.storage;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.databind.BeanDescription;
+import com.fasterxml.jackson.databind.DeserializationConfig;
+import com.fasterxml.jackson.databind.DeserializationContext;
+import com.fasterxml.jackson.databind.deser.BeanDeserializerBuilder;
+import com.fasterxml.jackson.databind.deser.BeanDeserializerModifier;
+import com.fasterxml.jackson.databind.deser.SettableBeanProperty;
+import com.fasterxml.jackson.databind.deser.std.StdScalarDeserializer;
+import com.fasterxml.jackson.databind.deser.std.StringDeserializer;
+import com.fasterxml.jackson.databind.module.SimpleModule;
+import com.musicshop.models.music.MusicItem;
+import com.musicshop.models.sales.CartLine;
+import com.musicshop.models.sales.Order;
+import com.musicshop.models.user.Customer;
+import com.musicshop.models.user.WorkLog;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+// Routes the low-cardinality string properties of the stored models through the StringPool
+class StringPoolModule extends SimpleModule {
+    private static final long serialVersionUID = 1L; // Jackson modules are Serializable
+    private static final Map<Class<?>, Set<String>> POOLED_PROPERTIES = Map.of(
+            MusicItem.class, Set.of("type", "artist"),
+            CartLine.class, Set.of("sku", "name", "type"),
+            Order.class, Set.of("processedById", "processedBy"),
+            Customer.class, Set.of("id", "name"),
+            WorkLog.class, Set.of("userId"));
+
+    StringPoolModule() {
+        super("StringPoolModule");
+        setDeserializerModifier(new BeanDeserializerModifier() {
+            @Override
+            public BeanDeserializerBuilder updateBuilder(DeserializationConfig config, BeanDescription beanDesc,
+                                                         BeanDeserializerBuilder builder) {
+                Set<String> pooled = pooledProperties(beanDesc.getBeanClass());
+                if (pooled.isEmpty()) {
+                    return builder;
+                }
+                // copy first, the builder's property iterator does not allow replacing while iterating
+                List<SettableBeanProperty> properties = new ArrayList<>();
+                builder.getProperties().forEachRemaining(properties::add);
+                for (SettableBeanProperty property : properties) {
+                    if (pooled.contains(property.getName()) && property.getType().hasRawClass(String.class)) {
+                        builder.addOrReplaceProperty(property.withValueDeserializer(PooledStringDeserializer.INSTANCE), true);
+                    }
+                }
+                return builder;
+            }
+        });
+    }
+
+    private static Set<String> pooledProperties(Class<?> beanClass) {
+        for (Map.Entry<Class<?>, Set<String>> entry : POOLED_PROPERTIES.entrySet()) {
+            if (entry.getKey().isAssignableFrom(beanClass)) {
+                return entry.getValue();
+            }
+        }
+        return Set.of();
+    }
+
+    static class PooledStringDeserializer extends StdScalarDeserializer<String> {
+        private static final long serialVersionUID = 1L;
+        static final PooledStringDeserializer INSTANCE = new PooledStringDeserializer();
+
+        private PooledStringDeserializer() { super(String.class); }
+
+        @Override
+        public String deserialize(JsonParser parser, DeserializationContext context) throws IOException {
+            return StringPool.canonical(StringDeserializer.instance.deserialize(parser, context));
+        }
+    }
+}
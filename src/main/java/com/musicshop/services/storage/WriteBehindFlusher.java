@@ -0,0 +1,67 @@
+package com.musicshop.services.storage;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiConsumer;
+
+// Write-behind layer for the dataset files.
+// Saves only mark a dataset dirty with its latest contents; a background thread
+// writes each dirty dataset once per window, so a burst of saves costs one write.
+public class WriteBehindFlusher {
+    private final long windowMillis;
+    private final BiConsumer<String, List<?>> writer;
+    private final ScheduledExecutorService scheduler;
+    private final Map<String, List<?>> dirty = new HashMap<>();
+    private final Object writeLock = new Object();
+
+    public WriteBehindFlusher(long windowMillis, BiConsumer<String, List<?>> writer) {
+        this.windowMillis = windowMillis;
+        this.writer = writer;
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "storage-flusher");
+            thread.setDaemon(true); // never keeps the JVM alive, shutdown relies on flush()
+            return thread;
+        });
+    }
+
+    // Remember the latest contents of a dataset and schedule a write if none is pending
+    public synchronized void markDirty(String fileName, List<?> snapshot) {
+        if (dirty.put(fileName, snapshot) == null) {
+            scheduler.schedule(() -> flush(fileName), windowMillis, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    public synchronized boolean isDirty(String fileName) { return dirty.containsKey(fileName); }
+
+    // Write one dataset now if it has pending changes
+    public void flush(String fileName) {
+        synchronized (writeLock) {
+            List<?> snapshot;
+            synchronized (this) {
+                snapshot = dirty.remove(fileName);
+            }
+            if (snapshot != null) {
+                writer.accept(fileName, snapshot);
+            }
+        }
+    }
+
+    // Write every pending dataset now; used on shutdown and as a durability barrier
+    public void flush() {
+        List<String> fileNames;
+        synchronized (this) {
+            fileNames = new ArrayList<>(dirty.keySet());
+        }
+        fileNames.forEach(this::flush);
+    }
+
+    public void shutdown() {
+        flush();
+        scheduler.shutdown();
+    }
+}
@@ -7,6 +7,7 @@ import com.musicshop.services.storage.FileStorageService;
 
 import java.time.Duration;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -44,11 +45,20 @@ public class AuthenticationService {
         private final FileStorageService fileStorageService;
         private final Map<String, WorkLog> activeWorkLogs;
         private final List<WorkLog> workLogs;
+        private final Map<String, Duration> totalWorkTimeByUser;
 
         public WorkLogService(FileStorageService fileStorageService) {
             this.fileStorageService = fileStorageService;
             this.activeWorkLogs = new HashMap<>();
-            this.workLogs = loadWorkLogs();
+            this.workLogs = new ArrayList<>();
+            this.totalWorkTimeByUser = new HashMap<>();
+            // totals are aggregated while the logs stream in
+            fileStorageService.streamWorkLogs(this::recordWorkLog);
+        }
+
+        private void recordWorkLog(WorkLog workLog) {
+            workLogs.add(workLog);
+            totalWorkTimeByUser.merge(workLog.getUserId(), workLog.getDuration(), Duration::plus);
         }
 
         public WorkLog checkIn(String userId) {
@@ -66,32 +76,19 @@ public class AuthenticationService {
                 throw new IllegalStateException("User not checked in");
             }
             workLog.checkOut();
-            workLogs.add(workLog);
+            recordWorkLog(workLog);
             saveWorkLogs();
             return workLog;
         }
 
         public Duration getTotalWorkTime(String userId) {
-            return workLogs.stream()
-                    .filter(log -> log.getUserId().equals(userId))
-                    .map(WorkLog::getDuration)
-                    .reduce(Duration.ZERO, Duration::plus);
+            return totalWorkTimeByUser.getOrDefault(userId, Duration.ZERO);
         }
 
         public Map<String, Duration> getAllWorkLogs() {
-            Map<String, Duration> totalWorkTimeByUser = new HashMap<>();
-            for (WorkLog log : workLogs) {
-                totalWorkTimeByUser.merge(
-                    log.getUserId(),
-                    log.getDuration(),
-                    Duration::plus
-                );
-            }
-            return totalWorkTimeByUser;
+            return new HashMap<>(totalWorkTimeByUser);
         }
 
-        private List<WorkLog> loadWorkLogs() { return fileStorageService.loadWorkLogs(); }
-
         private void saveWorkLogs() { fileStorageService.saveWorkLogs(workLogs); }
     }
 }
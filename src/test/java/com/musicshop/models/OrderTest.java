@@ -3,6 +3,7 @@ package com.musicshop.models;
 import com.musicshop.models.music.Album;
 import com.musicshop.models.music.Instrument;
 import com.musicshop.models.music.MusicItem;
+import com.musicshop.models.sales.CartLine;
 import com.musicshop.models.sales.Order;
 import com.musicshop.models.user.Customer;
 import org.junit.jupiter.api.BeforeEach;
@@ -35,14 +36,26 @@ class OrderTest {
         assertNotNull(order);
         assertEquals(customer, order.getCustomer());
         assertNotNull(order.getOrderDate());
-        assertTrue(order.getCartItems().isEmpty());
+        assertTrue(order.getCartLines().isEmpty());
     }
 
     @Test
     void testAddItem() {
         order.addItem(albumItem);
-        assertEquals(1, order.getCartItems().size()); // Using getCartItems()
-        assertTrue(order.getCartItems().contains(albumItem));
+        assertEquals(1, order.getCartLines().size());
+        CartLine line = order.getCartLines().get(0);
+        assertEquals("barcode-test", line.getSku());
+        assertEquals(albumItem.getPrice(), line.getUnitPrice());
+        assertEquals(1, line.getQuantity());
+    }
+
+    @Test
+    void testAddSameItemTwiceMergesLine() {
+        order.addItem(albumItem);
+        order.addItem(albumItem);
+        assertEquals(1, order.getCartLines().size());
+        assertEquals(2, order.getCartLines().get(0).getQuantity());
+        assertEquals(albumItem.getPrice() * 2, order.getTotalAmount());
     }
 
     @Test
@@ -53,4 +53,13 @@ class MusicItemTest {
         MusicItem item = new TestMusicItem("Test Item", 99.99, 5);
         assertEquals("Name: Test Item, Price: $99.99, Quantity: 5", item.toString());
     }
+
+    @Test
+    void testFoldedNameFollowsRename() {
+        MusicItem item = new TestMusicItem("Test Item", 99.99, 5);
+        assertEquals("test item", item.getFoldedName());
+        item.setName("Other ITEM");
+        assertEquals("other item", item.getFoldedName());
+        assertNull(item.getItemType(), "Kinds outside MusicItemType have no item type");
+    }
 }
@@ -0,0 +1,67 @@
+package com.musicshop.services;
+
+import com.musicshop.services.storage.AtomicFileWriter;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AtomicFileWriterTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void testWriteReplacesFile() throws Exception {
+        Path target = directory.resolve("inventory.json");
+        Files.writeString(target, "old");
+
+        new AtomicFileWriter(0).write(target, "new".getBytes(StandardCharsets.UTF_8));
+
+        assertEquals("new", Files.readString(target));
+        assertFalse(Files.exists(directory.resolve("inventory.json.tmp")), "Temp file should be renamed away");
+    }
+
+    @Test
+    void testConcurrentWritesAreGroupCommitted() throws Exception {
+        AtomicFileWriter writer = new AtomicFileWriter(5);
+        Path target = directory.resolve("orders.json");
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int i = 0; i < 50; i++) {
+                String contents = "version-" + i;
+                futures.add(executor.submit(() -> {
+                    writer.write(target, contents.getBytes(StandardCharsets.UTF_8));
+                    return null;
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get(); // every writer returns once its commit is durable
+            }
+        } finally {
+            executor.shutdown();
+        }
+        assertTrue(Files.readString(target).startsWith("version-"), "File should hold one complete version");
+        assertTrue(writer.getBatchCount() < 25, "50 writes should share far fewer commits, got " + writer.getBatchCount());
+    }
+
+    @Test
+    void testFailedCommitDoesNotBlockLaterWrites() {
+        AtomicFileWriter writer = new AtomicFileWriter(0);
+        Path target = directory.resolve("users.json");
+        assertThrows(NullPointerException.class, () -> writer.write(target, null));
+        assertTimeoutPreemptively(Duration.ofSeconds(5), () -> writer.write(target, "ok".getBytes(StandardCharsets.UTF_8)),
+                "A failed commit must hand leadership back");
+    }
+}
@@ -0,0 +1,78 @@
+package com.musicshop.services;
+
+import com.musicshop.models.music.Album;
+import com.musicshop.models.music.Instrument;
+import com.musicshop.models.music.MusicItem;
+import com.musicshop.models.sales.Order;
+import com.musicshop.models.user.Customer;
+import com.musicshop.models.user.User;
+import com.musicshop.models.user.UserRole;
+import com.musicshop.services.storage.FileStorageService;
+import com.musicshop.services.storage.StorageFormat;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BinarySnapshotTest {
+
+    @TempDir
+    Path dataDirectory;
+
+    @Test
+    void testItemsRoundTrip() {
+        FileStorageService storage = new FileStorageService(dataDirectory, 0, StorageFormat.BINARY);
+        storage.saveItems(List.of(
+                new Album("Abbey Road", 30.0, "The Beatles", 1969, "album", 3, "bc-1"),
+                new Instrument("Ukulele", 75.0, "instrument", 1, null)));
+
+        assertTrue(Files.exists(dataDirectory.resolve("inventory.bin")));
+        List<MusicItem> items = storage.loadItems();
+        assertEquals(2, items.size());
+        Album album = (Album) items.get(0);
+        assertEquals("The Beatles", album.getArtist());
+        assertEquals(1969, album.getYear());
+        assertEquals(3, album.getQuantity());
+        assertEquals("bc-1", album.getBarcode());
+        assertNull(items.get(1).getBarcode());
+    }
+
+    @Test
+    void testOrdersAndUsersRoundTrip() {
+        FileStorageService storage = new FileStorageService(dataDirectory, 0, StorageFormat.BINARY);
+        Order order = new Order(new Customer("C1", "Ana"));
+        order.addItem(new Album("Lavender", 70.0, "Yung Lean", 2013, "album"));
+        order.setProcessor("u-1", "clerk");
+        storage.saveOrders(List.of(order));
+        User user = new User("clerk", "secret", UserRole.SHOP_EMPLOYEE);
+        storage.saveUsers(List.of(user));
+
+        Order loaded = storage.loadOrders().get(0);
+        assertEquals(order.getOrderId(), loaded.getOrderId());
+        assertEquals(order.getOrderDate(), loaded.getOrderDate());
+        assertEquals("Lavender", loaded.getCartLines().get(0).getName());
+        assertEquals(70.0, loaded.getTotalAmount());
+        User loadedUser = storage.loadUsers().get(0);
+        assertEquals(user.getId(), loadedUser.getId());
+        assertTrue(loadedUser.checkPassword("secret"), "Password hash must survive unchanged");
+    }
+
+    @Test
+    void testConvertersBetweenJsonAndBinary() {
+        new FileStorageService(dataDirectory, 0, StorageFormat.JSON)
+                .saveItems(List.of(new Instrument("Mandolin", 110.0, "instrument", 1, "bc-2")));
+
+        new FileStorageService(dataDirectory, 0, StorageFormat.BINARY).convertJsonToBinary();
+        assertTrue(Files.exists(dataDirectory.resolve("inventory.bin")));
+        assertEquals("Mandolin", new FileStorageService(dataDirectory, 0, StorageFormat.BINARY).loadItems().get(0).getName());
+
+        FileStorageService binary = new FileStorageService(dataDirectory, 0, StorageFormat.BINARY);
+        binary.saveItems(List.of(new Instrument("Bass Guitar", 170.0, "instrument", 1, "bc-3")));
+        binary.convertBinaryToJson();
+        assertEquals("Bass Guitar", new FileStorageService(dataDirectory, 0, StorageFormat.JSON).loadItems().get(0).getName());
+    }
+}
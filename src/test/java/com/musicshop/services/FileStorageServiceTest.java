@@ -2,8 +2,15 @@ package com.musicshop.services;
 
 import com.musicshop.models.music.MusicItem;
 import com.musicshop.models.music.Album;
+import com.musicshop.models.sales.CartLine;
+import com.musicshop.models.sales.Order;
+import com.musicshop.models.user.WorkLog;
 import com.musicshop.services.storage.FileStorageService;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.List;      // Import List
 import java.util.ArrayList; // Import ArrayList
 import static org.junit.jupiter.api.Assertions.*;
@@ -30,4 +37,54 @@ class FileStorageServiceTest {
         List<MusicItem> loadedItems = fileStorageService.loadItems();
         assertEquals(1, loadedItems.size(), "The saved item should be retrievable from the file");
     }
+
+    @Test
+    void testStreamWorkLogs(@TempDir Path dataDirectory) {
+        FileStorageService fileStorageService = new FileStorageService(dataDirectory);
+        List<WorkLog> workLogs = new ArrayList<>();
+        workLogs.add(new WorkLog("user-1"));
+        workLogs.add(new WorkLog("user-2"));
+        fileStorageService.saveWorkLogs(workLogs);
+
+        List<String> streamedUserIds = new ArrayList<>();
+        fileStorageService.streamWorkLogs(log -> streamedUserIds.add(log.getUserId()));
+        assertEquals(List.of("user-1", "user-2"), streamedUserIds, "Work logs should stream in file order");
+    }
+
+    @Test
+    void testWriteBehindCoalescesSaves(@TempDir Path dataDirectory) {
+        FileStorageService fileStorageService = new FileStorageService(dataDirectory, 60_000);
+        List<MusicItem> items = new ArrayList<>();
+        for (int i = 0; i < 200; i++) {
+            items.add(new Album("Album " + i, 20.0, "Artist", 2020, "album"));
+            fileStorageService.saveItems(items);
+        }
+        assertFalse(Files.exists(dataDirectory.resolve("inventory.json")), "Saves should wait for the flusher");
+
+        fileStorageService.flush();
+        assertTrue(Files.exists(dataDirectory.resolve("inventory.json")));
+        assertEquals(200, new FileStorageService(dataDirectory, 0).loadItems().size(), "Only the latest contents are written");
+    }
+
+    @Test
+    void testLegacyCartItemsLoadAsCartLines(@TempDir Path dataDirectory) throws Exception {
+        String item = "{\"type\":\"album\",\"name\":\"Clean\",\"price\":30.0,\"quantity\":1,"
+                + "\"barcode\":null,\"artist\":\"Madona\",\"year\":2013}";
+        Files.writeString(dataDirectory.resolve("orders.json"), "[{\"orderId\":\"ORD-1\",\"cartItems\":["
+                + item + "," + item + "],\"totalAmount\":60.0,\"orderDate\":\"2024-11-09T12:08:29\"}]");
+
+        FileStorageService fileStorageService = new FileStorageService(dataDirectory, 0);
+        Order order = fileStorageService.loadOrders().get(0);
+        assertEquals(1, order.getCartLines().size(), "Copies of the same item fold into one line");
+        CartLine line = order.getCartLines().get(0);
+        assertNull(line.getSku(), "Items without a barcode are referenced by name");
+        assertEquals("Clean", line.getName());
+        assertEquals(2, line.getQuantity());
+        assertEquals(60.0, order.getTotalAmount());
+
+        fileStorageService.saveOrders(List.of(order));
+        String migrated = Files.readString(dataDirectory.resolve("orders.json"));
+        assertFalse(migrated.contains("cartItems"), "Saved orders use the cart line format");
+        assertEquals(2, fileStorageService.loadOrders().get(0).getCartLines().get(0).getQuantity());
+    }
 }
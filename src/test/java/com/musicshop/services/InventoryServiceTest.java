@@ -0,0 +1,586 @@
+package com.musicshop.services;
+
+import com.musicshop.models.music.Album;
+import com.musicshop.models.music.CompletionRank;
+import com.musicshop.models.music.Instrument;
+import com.musicshop.models.music.MusicItem;
+import com.musicshop.models.music.MusicItemType;
+import com.musicshop.models.music.SearchCriteria;
+import com.musicshop.models.music.SearchPage;
+import com.musicshop.models.music.SearchPageRequest;
+import com.musicshop.models.music.SearchSort;
+import com.musicshop.services.inventory.ImportReport;
+import com.musicshop.services.inventory.InventoryFacets;
+import com.musicshop.services.inventory.InventoryService;
+import com.musicshop.services.inventory.InventorySnapshot;
+import com.musicshop.services.inventory.StockReservation;
+import com.musicshop.services.storage.FileStorageService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class InventoryServiceTest {
+
+    @TempDir
+    Path dataDirectory;
+
+    private FileStorageService storage;
+    private InventoryService inventoryService;
+
+    @BeforeEach
+    void setUp() {
+        storage = new FileStorageService(dataDirectory, 0);
+        storage.saveItems(List.of(
+                new Album("Abbey Road", 30.0, "The Beatles", 1969, "album", 2, "bc-1"),
+                new Instrument("Ukulele", 75.0, "instrument", 1, null)));
+        inventoryService = new InventoryService(storage);
+    }
+
+    @Test
+    void testFindItemByNameIgnoresCaseAndSpaces() {
+        assertEquals("Abbey Road", inventoryService.findItemByName("  abbey ROAD ").getName());
+        assertNull(inventoryService.findItemByName("Abbey"));
+        assertNull(inventoryService.findItemByName(" "));
+    }
+
+    @Test
+    void testNameIndexFollowsEditsAndRemovals() {
+        MusicItem ukulele = inventoryService.findItemByName("Ukulele");
+        inventoryService.updateItem(ukulele, item -> item.setName("Baritone Ukulele"));
+        assertNull(inventoryService.findItemByName("Ukulele"));
+        assertSame(ukulele, inventoryService.findItemByName("baritone ukulele"));
+
+        assertTrue(inventoryService.removeItem(ukulele));
+        assertNull(inventoryService.findItemByName("Baritone Ukulele"));
+        assertFalse(inventoryService.removeItem(ukulele));
+        assertEquals(1, new InventoryService(storage).getItems().size(), "Removal is persisted");
+    }
+
+    @Test
+    void testAddingExistingNameIncreasesQuantity() {
+        inventoryService.addItem(new Album("ABBEY ROAD", 30.0, "The Beatles", 1969, "album", 3, null));
+        assertEquals(2, inventoryService.getItems().size());
+        assertEquals(5, inventoryService.findItemByName("Abbey Road").getQuantity());
+    }
+
+    @Test
+    void testSnapshotsAreSharedAndReplacedOnWrite() {
+        InventorySnapshot before = inventoryService.getSnapshot();
+        assertSame(inventoryService.getItems(), inventoryService.getItems(), "Reads share the snapshot");
+        assertThrows(UnsupportedOperationException.class, () -> inventoryService.getItems().clear());
+
+        inventoryService.addItem(new Instrument("Cajon", 120.0, "instrument", 1, null));
+        InventorySnapshot added = inventoryService.getSnapshot();
+        assertEquals(2, before.items().size(), "Earlier snapshots keep their view");
+        assertEquals(3, added.items().size());
+        assertTrue(added.version() > before.version());
+
+        inventoryService.updateItem(inventoryService.findItemByName("Cajon"), item -> item.setPrice(110.0));
+        assertTrue(inventoryService.getSnapshot().version() > added.version());
+        assertSame(added.items(), inventoryService.getItems(), "In-place edits keep the list");
+    }
+
+    @Test
+    void testReservationsCommitAndRelease() {
+        StockReservation held = inventoryService.reserve("bc-1", 2);
+        assertNotNull(held);
+        assertEquals(0, inventoryService.findItemByName("Abbey Road").getQuantity());
+        assertNull(inventoryService.reserve("bc-1", 1), "Nothing left to reserve");
+        assertEquals(List.of("Abbey Road"), names(inventoryService.searchItems(new SearchCriteria(null, null, null, null, false))));
+
+        assertTrue(inventoryService.release(held));
+        assertFalse(inventoryService.commit(held), "Already released");
+        assertEquals(2, inventoryService.findItemByName("Abbey Road").getQuantity());
+
+        StockReservation sold = inventoryService.reserve("ukulele", 1); // no barcode, reserved by name
+        assertTrue(inventoryService.commit(sold));
+        assertFalse(inventoryService.release(sold));
+        assertEquals(0, new InventoryService(storage).findItemByName("Ukulele").getQuantity(), "Sale is persisted");
+        assertNull(inventoryService.reserve("no-such-sku", 1));
+    }
+
+    @Test
+    void testRemovedItemCannotBeReserved() {
+        MusicItem abbeyRoad = inventoryService.findItemByName("Abbey Road");
+        assertTrue(inventoryService.removeItem(abbeyRoad));
+        assertNull(inventoryService.reserve(abbeyRoad, 1), "A stale reference must not sell a removed item");
+        assertEquals(2, abbeyRoad.getQuantity(), "The claimed units are given back");
+    }
+
+    @Test
+    void testConcurrentReservationsNeverOversell() throws Exception {
+        int stock = 500;
+        inventoryService.addItem(new Instrument("Guitar Pick", 0.5, "instrument", stock, "bc-pick"));
+        int threads = 16;
+        ExecutorService registers = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        AtomicInteger sold = new AtomicInteger();
+        List<Future<?>> results = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            results.add(registers.submit(() -> {
+                start.await();
+                for (int i = 0; i < 200; i++) {
+                    StockReservation reservation = inventoryService.reserve("bc-pick", 1 + i % 3);
+                    if (reservation == null) {
+                        continue;
+                    }
+                    if (i % 4 == 0) {
+                        inventoryService.release(reservation); // customer changed their mind
+                    } else if (inventoryService.commit(reservation)) {
+                        sold.addAndGet(reservation.getQuantity());
+                    }
+                }
+                return null;
+            }));
+        }
+        start.countDown();
+        for (Future<?> result : results) {
+            result.get(30, TimeUnit.SECONDS);
+        }
+        registers.shutdown();
+
+        MusicItem picks = inventoryService.findItemByBarcode("bc-pick");
+        assertTrue(picks.getQuantity() >= 0);
+        assertEquals(1 + picks.getQuantity(), inventoryService.getFacets().getUnits(MusicItemType.INSTRUMENT),
+                "Facet counters saw every change");
+        assertEquals(stock, sold.get() + picks.getQuantity(), "Every unit is either sold or still on the shelf");
+        boolean inStock = picks.getQuantity() > 0;
+        assertTrue(inventoryService.searchItems(new SearchCriteria("pick", null, null, null, inStock)).contains(picks));
+        assertFalse(inventoryService.searchItems(new SearchCriteria("pick", null, null, null, !inStock)).contains(picks));
+    }
+
+    @Test
+    void testImportCsvMergesAndReportsBadRows() throws Exception {
+        Path delivery = dataDirectory.resolve("delivery.csv");
+        Files.writeString(delivery, String.join("\n",
+                "Type,Name,Price,Quantity,Barcode,Artist,Year",
+                "album,\"Help!\",25.0,4,bc-2,The Beatles,1965",
+                "album,Abbey Road (Remastered),30.0,3,bc-1,,",   // merged by barcode
+                "instrument,ukulele,75.0,2,,,",                    // merged by name
+                "instrument,Help!,10.0,1,,,",                      // same name, other kind
+                "album,Revolver,abc,1,,The Beatles,1966",
+                "drum,Snare,99.0,1,,,",
+                "",
+                "instrument,\"Pick, Medium\",0.5,100,,,"));
+
+        ImportReport report = inventoryService.importItems(delivery);
+        assertEquals(2, report.getAddedItems());
+        assertEquals(2, report.getMergedItems());
+        assertEquals(109, report.getUnitsReceived());
+        assertEquals(List.of(5, 6, 7), report.getErrors().stream().map(ImportReport.RowError::line).toList());
+
+        InventoryService reloaded = new InventoryService(storage);
+        assertEquals(4, reloaded.getItems().size());
+        assertEquals(5, reloaded.findItemByName("Abbey Road").getQuantity());
+        assertEquals(3, reloaded.findItemByName("Ukulele").getQuantity());
+        assertEquals("The Beatles", ((Album) reloaded.findItemByBarcode("bc-2")).getArtist());
+        assertEquals(100, reloaded.findItemByName("Pick, Medium").getQuantity());
+    }
+
+    @Test
+    void testImportJsonLines() throws Exception {
+        Path delivery = dataDirectory.resolve("delivery.jsonl");
+        Files.writeString(delivery, String.join("\n",
+                "{\"type\":\"album\",\"name\":\"Abbey Road\",\"price\":30.0,\"artist\":\"The Beatles\",\"year\":1969,\"quantity\":1}",
+                "{\"type\":\"instrument\",\"name\":\"Cajon\",\"price\":120.0,\"quantity\":2,\"barcode\":\"bc-9\"}",
+                "{\"type\":\"instrument\",\"name\":\"Cajon\",\"price\":-1.0}",
+                "{not json"));
+
+        ImportReport report = inventoryService.importItems(delivery);
+        assertEquals(1, report.getAddedItems());
+        assertEquals(1, report.getMergedItems());
+        assertEquals(List.of(3, 4), report.getErrors().stream().map(ImportReport.RowError::line).toList());
+        assertEquals(3, inventoryService.findItemByName("Abbey Road").getQuantity());
+        assertSame(inventoryService.findItemByName("cajon"), inventoryService.findItemByBarcode("bc-9"));
+    }
+
+    @Test
+    void testImportPublishesNewRowsInOneSnapshot() throws Exception {
+        Path delivery = dataDirectory.resolve("delivery.csv");
+        Files.writeString(delivery, String.join("\n",
+                "Type,Name,Price,Quantity,Barcode,Artist,Year",
+                "instrument,Cajon,120.0,2,bc-9,,",
+                "instrument,cajon,120.0,1,,,",        // merged into the row above by name
+                "instrument,Cajon,120.0,1,bc-7,,",    // conflicts with the barcode imported above
+                "instrument,Shaker,8.0,5,bc-8,,",
+                "instrument,Egg Shaker,8.0,5,bc-8,,"));  // merged by barcode
+
+        long version = inventoryService.getSnapshot().version();
+        ImportReport report = inventoryService.importItems(delivery);
+        assertEquals(2, report.getAddedItems());
+        assertEquals(2, report.getMergedItems());
+        assertEquals(List.of(4), report.getErrors().stream().map(ImportReport.RowError::line).toList());
+
+        InventorySnapshot published = inventoryService.getSnapshot();
+        assertEquals(version + 1, published.version(), "The import should publish a single snapshot");
+        MusicItem cajon = inventoryService.findItemByBarcode("bc-9");
+        assertEquals(3, cajon.getQuantity());
+        assertEquals(10, inventoryService.findItemByName("Shaker").getQuantity());
+        assertTrue(published.items().contains(cajon));
+        assertEquals(List.of(cajon), search("cajon"));
+    }
+
+    @Test
+    void testImportThatFailsMidFileChangesNothing() throws Exception {
+        StringBuilder rows = new StringBuilder("Type,Name,Price,Quantity,Barcode,Artist,Year\n");
+        rows.append("instrument,Ukulele,75.0,5,,,\n"); // would merge into the existing item
+        for (int i = 0; i < 400; i++) {
+            rows.append("instrument,Delivered Item ").append(i).append(",10.0,1,,,\n");
+        }
+        Path delivery = dataDirectory.resolve("delivery.csv");
+        try (OutputStream out = Files.newOutputStream(delivery)) {
+            out.write(rows.toString().getBytes(StandardCharsets.UTF_8));
+            out.write(new byte[]{(byte) 0xC3, (byte) 0x28, '\n'}); // not UTF-8, fails past the first buffer
+        }
+        int ukuleleStock = inventoryService.findItemByName("Ukulele").getQuantity();
+        int itemCount = inventoryService.getItems().size();
+
+        assertThrows(IOException.class, () -> inventoryService.importItems(delivery));
+        assertEquals(ukuleleStock, inventoryService.findItemByName("Ukulele").getQuantity());
+        assertEquals(itemCount, inventoryService.getItems().size());
+        assertNull(inventoryService.findItemByName("Delivered Item 0"));
+        assertEquals(itemCount, new InventoryService(storage).getItems().size(), "Nothing should be saved");
+    }
+
+    @Test
+    void testFindSimilarItemsToleratesTypos() {
+        inventoryService.addItem(new Instrument("Mandolin", 250.0, "instrument", 1, null));
+        inventoryService.addItem(new Album("Abbey Road Live", 20.0, "Various", 1990, "album", 1, null));
+
+        assertEquals(List.of("Abbey Road"), names(inventoryService.findSimilarItems("Abey Road", 2, 5)));
+        assertEquals(List.of("Mandolin"), names(inventoryService.findSimilarItems("MANDOLINN", 1, 5)));
+        assertEquals(List.of("Abbey Road", "Abbey Road Live"), names(inventoryService.findSimilarItems("Abbey Road", 5, 5)),
+                "Closest first");
+        assertTrue(inventoryService.findSimilarItems("Theremin", 2, 5).isEmpty());
+    }
+
+    @Test
+    void testFuzzyIndexFollowsRemovalsAndRebuilds() {
+        List<MusicItem> added = new ArrayList<>();
+        for (int i = 0; i < 300; i++) {
+            MusicItem item = new Instrument("Drum Kit " + i, 500.0, "instrument", 1, null);
+            inventoryService.addItem(item);
+            added.add(item);
+        }
+        added.subList(0, 250).forEach(inventoryService::removeItem); // enough tombstones to rebuild
+        assertTrue(inventoryService.findSimilarItems("Drum Kit 10", 0, 5).isEmpty());
+        assertEquals(List.of("Drum Kit 260"), names(inventoryService.findSimilarItems("drum kit 260", 0, 5)));
+        assertEquals(50, inventoryService.findSimilarItems("Drum Kit 2", 2, 100).size());
+
+        MusicItem ukulele = inventoryService.findItemByName("Ukulele");
+        inventoryService.updateItem(ukulele, item -> item.setName("Banjolele"));
+        assertEquals(List.of("Banjolele"), names(inventoryService.findSimilarItems("banjolel", 1, 5)));
+        assertTrue(inventoryService.findSimilarItems("Ukulele", 1, 5).isEmpty());
+    }
+
+    @Test
+    void testAutocompleteRanksByStockOrSales() {
+        inventoryService.addItem(new Album("Abbey Road Live", 20.0, "Various", 1990, "album", 5, null));
+        inventoryService.addItem(new Album("Help!", 25.0, "The Beatles", 1965, "album", 1, null));
+        inventoryService.addItem(new Instrument("Acoustic Guitar", 300.0, "instrument", 3, null));
+
+        assertEquals(List.of("Abbey Road Live", "Abbey Road"), names(inventoryService.autocomplete("abb", 5, CompletionRank.STOCK)));
+        assertEquals(List.of("Abbey Road", "Help!"), names(inventoryService.autocomplete(" The Beat", 5, CompletionRank.STOCK)),
+                "Artists complete too");
+        assertEquals(List.of("Abbey Road Live", "Acoustic Guitar"), names(inventoryService.autocomplete("a", 2, CompletionRank.STOCK)));
+        assertTrue(inventoryService.autocomplete("abbz", 5, CompletionRank.STOCK).isEmpty());
+        assertTrue(inventoryService.autocomplete("", 5, CompletionRank.STOCK).isEmpty());
+
+        assertTrue(inventoryService.commit(inventoryService.reserve("bc-1", 2)));
+        assertEquals(List.of("Abbey Road", "Abbey Road Live"), names(inventoryService.autocomplete("abbey road", 5, CompletionRank.SALES)));
+        assertEquals(2, inventoryService.getUnitsSold(inventoryService.findItemByName("Abbey Road")));
+
+        MusicItem live = inventoryService.findItemByName("Abbey Road Live");
+        inventoryService.updateItem(live, item -> item.setName("Abbey Rd Live"));
+        assertEquals(List.of("Abbey Rd Live"), names(inventoryService.autocomplete("abbey rd", 5, CompletionRank.STOCK)));
+        inventoryService.removeItem(live);
+        assertEquals(List.of("Abbey Road"), names(inventoryService.autocomplete("abbey", 5, CompletionRank.STOCK)));
+    }
+
+    @Test
+    void testFacetCountsFollowEveryChange() throws Exception {
+        InventoryFacets facets = inventoryService.getFacets();
+        assertEquals(1, facets.getSkus(MusicItemType.ALBUM));
+        assertEquals(2, facets.getUnits(MusicItemType.ALBUM));
+        assertEquals(1, facets.getUnits(MusicItemType.INSTRUMENT));
+        assertEquals(2, facets.inStockSkus());
+        assertEquals(Map.of("under $25", 0, "$25 - $50", 1, "$50 - $100", 1, "$100 - $500", 0, "$500 and up", 0),
+                facets.skusByPriceBucket());
+
+        StockReservation ukulele = inventoryService.reserve("Ukulele", 1);
+        inventoryService.updateItem(inventoryService.findItemByName("Abbey Road"), item -> item.setPrice(20.0));
+        inventoryService.addItem(new Instrument("Grand Piano", 9000.0, "instrument", 1, null));
+        Path delivery = dataDirectory.resolve("delivery.csv");
+        Files.writeString(delivery, "type,name,price,quantity\nalbum,Abbey Road,20.0,3\n");
+        inventoryService.importItems(delivery);
+
+        facets = inventoryService.getFacets();
+        assertEquals(5, facets.getUnits(MusicItemType.ALBUM));
+        assertEquals(2, facets.getSkus(MusicItemType.INSTRUMENT));
+        assertEquals(1, facets.getUnits(MusicItemType.INSTRUMENT));
+        assertEquals(2, facets.inStockSkus());
+        assertEquals(1, facets.outOfStockSkus());
+        assertEquals(1, facets.skusByPriceBucket().get("under $25"));
+        assertEquals(1, facets.skusByPriceBucket().get("$500 and up"));
+
+        inventoryService.release(ukulele);
+        inventoryService.removeItem(inventoryService.findItemByName("Grand Piano"));
+        facets = inventoryService.getFacets();
+        assertEquals(1, facets.getUnits(MusicItemType.INSTRUMENT));
+        assertEquals(2, facets.inStockSkus());
+        assertEquals(0, facets.outOfStockSkus());
+        assertEquals(0, facets.skusByPriceBucket().get("$500 and up"));
+    }
+
+    @Test
+    void testFindItemByBarcode() {
+        MusicItem album = inventoryService.findItemByBarcode("bc-1");
+        assertEquals("Abbey Road", album.getName());
+        assertNull(inventoryService.findItemByBarcode("bc-2"));
+        assertNull(inventoryService.findItemByBarcode(null), "Items without a barcode are never matched");
+
+        inventoryService.addItem(new Instrument("Mandolin", 110.0, "instrument", 1, "bc-2"));
+        assertEquals("Mandolin", inventoryService.findItemByBarcode("bc-2").getName());
+        inventoryService.removeItem(album);
+        assertNull(inventoryService.findItemByBarcode("bc-1"));
+    }
+
+    @Test
+    void testKeywordSearchMatchesNamesAndArtists() {
+        inventoryService.addItem(new Album("Let It Be", 25.0, "The Beatles", 1970, "album", 1, null));
+        assertEquals(2, search("beatles").size());
+        assertEquals(List.of("Ukulele"), names(search("KULE")));
+        assertEquals(List.of("Abbey Road"), names(search("ey r")));
+        assertEquals(List.of("Abbey Road"), names(search("ab")), "Short keywords fall back to a scan");
+
+        inventoryService.addItem(new Instrument("Banana Shaker", 5.0, "instrument", 1, null));
+        assertEquals(1, search("banana").size());
+        assertTrue(search("bananana").isEmpty(), "Sharing every trigram is not enough, the keyword must match");
+    }
+
+    @Test
+    void testKeywordIndexFollowsRenames() {
+        MusicItem ukulele = inventoryService.findItemByName("Ukulele");
+        inventoryService.updateItem(ukulele, item -> item.setName("Banjolele"));
+        assertTrue(search("ukulele").isEmpty());
+        assertEquals(List.of("Banjolele"), names(search("banjo")));
+    }
+
+    @Test
+    void testPriceRangeSearch() {
+        inventoryService.addItem(new Instrument("Kazoo", 5.0, "instrument", 0, null));
+        inventoryService.addItem(new Instrument("Mandolin", 110.0, "instrument", 1, null));
+        assertEquals(List.of("Abbey Road", "Ukulele"),
+                names(inventoryService.searchItemsSortedByPrice(new SearchCriteria(null, 10.0, 100.0, null, null))));
+        assertEquals(List.of("Kazoo", "Abbey Road", "Ukulele", "Mandolin"),
+                names(inventoryService.searchItemsSortedByPrice(new SearchCriteria(null, null, null, null, null))));
+        assertEquals(List.of("Ukulele", "Mandolin"),
+                names(inventoryService.searchItemsSortedByPrice(new SearchCriteria(null, 50.0, null, "Instrument", true))));
+        assertEquals(2, inventoryService.searchItems(new SearchCriteria(null, 30.0, 75.0, null, null)).size());
+
+        MusicItem kazoo = inventoryService.findItemByName("Kazoo");
+        inventoryService.updateItem(kazoo, item -> item.setPrice(500.0));
+        assertEquals(List.of("Mandolin", "Kazoo"),
+                names(inventoryService.searchItemsSortedByPrice(new SearchCriteria(null, 100.0, null, null, null))));
+    }
+
+    @Test
+    void testInvertedPriceRangeMatchesNothing() {
+        SearchCriteria inverted = new SearchCriteria(null, 50.0, 10.0, null, null);
+        assertTrue(inventoryService.searchItems(inverted).isEmpty());
+        assertTrue(inventoryService.searchItemsSortedByPrice(inverted).isEmpty());
+        assertTrue(inventoryService.explain(inverted).startsWith("drive by price 50.0 to 10.0 (est. 0 of"),
+                inventoryService.explain(inverted));
+    }
+
+    @Test
+    void testPlannerDrivesBySmallestCandidateSet() {
+        for (int i = 0; i < 200; i++) {
+            inventoryService.addItem(new Album("Album " + i, 10.0 + i, "Various", 2000, "album", i % 2, null));
+        }
+        inventoryService.addItem(new Instrument("Theremin", 900.0, "instrument", 0, null));
+
+        SearchCriteria criteria = new SearchCriteria(null, null, null, "Instrument", false);
+        assertTrue(inventoryService.explain(criteria).startsWith("drive by type instrument (est. 2 of 203)"),
+                inventoryService.explain(criteria));
+        assertEquals(List.of("Theremin"), names(inventoryService.searchItems(criteria)));
+
+        SearchCriteria byPrice = new SearchCriteria("album 1", 150.0, 160.0, "album", true);
+        assertTrue(inventoryService.explain(byPrice).startsWith("drive by price 150.0 to 160.0"),
+                inventoryService.explain(byPrice));
+        assertEquals(List.of("Album 141", "Album 143", "Album 145", "Album 147", "Album 149"),
+                names(inventoryService.searchItemsSortedByPrice(byPrice)));
+
+        assertTrue(inventoryService.explain(new SearchCriteria(null, null, null, "album", null))
+                .startsWith("drive by full scan"), "An unselective type is cheaper to scan");
+    }
+
+    @Test
+    void testArtistAndYearFiltersComposeWithOthers() {
+        inventoryService.addItem(new Album("Help!", 25.0, "The Beatles", 1965, "album", 0, null));
+        inventoryService.addItem(new Album("Let It Be", 28.0, "the beatles ", 1970, "album", 1, null));
+        inventoryService.addItem(new Album("Pet Sounds", 27.0, "The Beach Boys", 1966, "album", 1, null));
+        for (int i = 0; i < 100; i++) {
+            inventoryService.addItem(new Album("Filler " + i, 10.0, "Artist " + i, 1990 + i % 20, "album", 1, null));
+        }
+
+        SearchCriteria beatlesSixties = new SearchCriteria(null, null, null, null, null, "THE BEATLES", 1960, 1969);
+        assertEquals(Set.of("Abbey Road", "Help!"), Set.copyOf(names(inventoryService.searchItems(beatlesSixties))));
+        assertEquals("drive by artist \"the beatles\" (est. 3 of 105)\n  then filter by year 1960 to 1969 (est. 3)",
+                inventoryService.explain(beatlesSixties));
+        assertTrue(inventoryService.explain(new SearchCriteria(null, null, null, null, null, "The Beatles", 1965, 1965))
+                .startsWith("drive by year 1965 to 1965 (est. 1 of 105)"));
+
+        SearchCriteria inStockBeatles = new SearchCriteria(null, null, 29.0, "Album", true, "The Beatles", null, null);
+        assertEquals(List.of("Let It Be"), names(inventoryService.searchItems(inStockBeatles)));
+
+        assertTrue(inventoryService.searchItems(new SearchCriteria(null, null, null, null, null, null, 2000, null))
+                .stream().allMatch(item -> ((Album) item).getYear() >= 2000));
+        assertTrue(inventoryService.searchItems(new SearchCriteria("ukulele", null, null, null, null, null, 1900, null)).isEmpty(),
+                "Only albums have a release year");
+    }
+
+    @Test
+    void testInvertedYearRangeMatchesNothing() {
+        SearchCriteria inverted = new SearchCriteria(null, null, null, null, null, null, 1970, 1960);
+        assertTrue(inventoryService.searchItems(inverted).isEmpty());
+        assertTrue(inventoryService.explain(inverted).startsWith("drive by year 1970 to 1960 (est. 0 of"),
+                inventoryService.explain(inverted));
+    }
+
+    @Test
+    void testSearchCacheHitsAndPreciseInvalidation() {
+        SearchCriteria albums = new SearchCriteria(null, null, null, "Album", null);
+        SearchCriteria inStockInstruments = new SearchCriteria(null, null, null, "Instrument", true);
+        assertEquals(List.of("Abbey Road"), names(inventoryService.searchItems(albums)));
+        assertEquals(List.of("Ukulele"), names(inventoryService.searchItems(inStockInstruments)));
+        assertEquals(List.of("Abbey Road"), names(inventoryService.searchItems(new SearchCriteria(null, null, null, "ALBUM", null))),
+                "Criteria are compared by value");
+        assertEquals(1, inventoryService.getSearchCacheStats().hits());
+        assertEquals(2, inventoryService.getSearchCacheStats().misses());
+
+        // an instrument edit and a new instrument leave the album search cached
+        inventoryService.updateItem(inventoryService.findItemByName("Ukulele"), item -> item.setPrice(70.0));
+        inventoryService.addItem(new Instrument("Cajon", 120.0, "instrument", 1, null));
+        assertEquals(1, inventoryService.getSearchCacheStats().invalidations(), "Only the instrument search is dropped");
+        assertEquals(Set.of("Ukulele", "Cajon"), Set.copyOf(names(inventoryService.searchItems(inStockInstruments))));
+        inventoryService.searchItems(albums);
+        assertEquals(2, inventoryService.getSearchCacheStats().hits());
+
+        // selling the last ukulele only touches stock-filtered searches
+        StockReservation lastUkulele = inventoryService.reserve("Ukulele", 1);
+        assertEquals(List.of("Cajon"), names(inventoryService.searchItems(inStockInstruments)));
+        inventoryService.release(lastUkulele);
+        assertEquals(Set.of("Ukulele", "Cajon"), Set.copyOf(names(inventoryService.searchItems(inStockInstruments))));
+        inventoryService.searchItems(albums);
+        assertEquals(3, inventoryService.getSearchCacheStats().hits());
+
+        inventoryService.removeItem(inventoryService.findItemByName("Abbey Road"));
+        assertTrue(inventoryService.searchItems(albums).isEmpty());
+    }
+
+    @Test
+    void testSearchCacheEvictsLeastRecentlyUsed() {
+        InventoryService cached = new InventoryService(storage, 2);
+        SearchCriteria first = new SearchCriteria("abbey", null, null, null, null);
+        SearchCriteria second = new SearchCriteria("ukulele", null, null, null, null);
+        SearchCriteria third = new SearchCriteria(null, 50.0, null, null, null);
+        cached.searchItems(first);
+        cached.searchItems(second);
+        cached.searchItems(first);  // second is now the least recently used
+        cached.searchItems(third);
+        assertEquals(1, cached.getSearchCacheStats().evictions());
+        cached.searchItems(first);
+        assertEquals(2, cached.getSearchCacheStats().hits());
+        cached.searchItems(second);
+        assertEquals(4, cached.getSearchCacheStats().misses());
+
+        InventoryService uncached = new InventoryService(storage, 0);
+        uncached.searchItems(first);
+        uncached.searchItems(first);
+        assertEquals(0, uncached.getSearchCacheStats().hits());
+        assertEquals(0, uncached.getSearchCacheStats().size());
+    }
+
+    @Test
+    void testPagedSearchReturnsTopKInOrder() {
+        for (int i = 0; i < 50; i++) {
+            inventoryService.addItem(new Album(String.format("Album %02d", i), 10.0 + i % 7, "Various", 2000, "album", 1, null));
+        }
+        SearchCriteria albums = new SearchCriteria(null, null, null, "album", true);
+
+        for (SearchSort sort : SearchSort.values()) {
+            for (boolean descending : new boolean[] {false, true}) {
+                List<MusicItem> expected = inventoryService.searchItems(albums);
+                expected.sort(sort.comparator(descending));
+                List<MusicItem> paged = new ArrayList<>();
+                SearchPageRequest request = SearchPageRequest.first(sort, descending, 20);
+                SearchPage page = inventoryService.searchItems(albums, request);
+                paged.addAll(page.getItems());
+                while (page.hasNext()) {
+                    request = request.next(page);
+                    page = inventoryService.searchItems(albums, request);
+                    paged.addAll(page.getItems());
+                }
+                assertEquals(51, paged.size());
+                if (sort == SearchSort.PRICE) {
+                    // equal prices may come out of the price index in any order
+                    assertEquals(expected.stream().map(MusicItem::getPrice).toList(), paged.stream().map(MusicItem::getPrice).toList());
+                } else {
+                    assertEquals(names(expected), names(paged), sort + (descending ? " descending" : ""));
+                }
+            }
+        }
+
+        SearchPage last = inventoryService.searchItems(albums, new SearchPageRequest(SearchSort.NAME, false, 20, 40));
+        assertEquals(11, last.getItems().size());
+        assertFalse(last.hasNext());
+        assertEquals("Album 39", last.getItems().get(0).getName(), "Abbey Road sorts first");
+    }
+
+    @Test
+    void testPagesOfEqualSortKeysDoNotOverlap() {
+        for (int i = 0; i < 30; i++) {
+            inventoryService.addItem(new Album(String.format("Reissue %02d", i), 20.0, "Various", 2000, "album", 1, String.format("RE-%02d", 29 - i)));
+        }
+        SearchCriteria albums = new SearchCriteria("Reissue", null, null, null, null);
+
+        List<String> barcodes = new ArrayList<>();
+        SearchPageRequest request = SearchPageRequest.first(SearchSort.TYPE, false, 7);
+        SearchPage page = inventoryService.searchItems(albums, request);
+        barcodes.addAll(page.getItems().stream().map(MusicItem::getBarcode).toList());
+        while (page.hasNext()) {
+            request = request.next(page);
+            page = inventoryService.searchItems(albums, request);
+            barcodes.addAll(page.getItems().stream().map(MusicItem::getBarcode).toList());
+        }
+        assertEquals(30, Set.copyOf(barcodes).size());
+        assertEquals(barcodes.stream().sorted().toList(), barcodes, "Equal types fall back to barcode order, not name");
+    }
+
+    private List<MusicItem> search(String keyword) {
+        return inventoryService.searchItems(new SearchCriteria(keyword, null, null, null, null));
+    }
+
+    private static List<String> names(List<MusicItem> items) {
+        return items.stream().map(MusicItem::getName).toList();
+    }
+}
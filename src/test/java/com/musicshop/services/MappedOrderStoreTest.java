@@ -0,0 +1,76 @@
+package com.musicshop.services;
+
+import com.musicshop.models.music.Album;
+import com.musicshop.models.music.Instrument;
+import com.musicshop.models.sales.Order;
+import com.musicshop.models.sales.SalesReport;
+import com.musicshop.models.user.Customer;
+import com.musicshop.services.analytics_dashboard.AnalyticsService;
+import com.musicshop.services.inventory.InventoryService;
+import com.musicshop.services.order.LazyOrderService;
+import com.musicshop.services.order.OrderService;
+import com.musicshop.services.storage.FileStorageService;
+import com.musicshop.services.storage.MappedOrderStore;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MappedOrderStoreTest {
+
+    @TempDir
+    Path dataDirectory;
+
+    @Test
+    void testMappedReportMatchesInMemoryReport() throws Exception {
+        FileStorageService storage = new FileStorageService(dataDirectory, 0);
+        Order first = new Order(new Customer("C1", "Ana"));
+        first.addItem(new Album("Abbey Road", 30.0, "The Beatles", 1969, "album"));
+        first.addItem(new Instrument("Ukulele", 75.0, "instrument"));
+        first.setProcessor("u-1", "clerk");
+        Order second = new Order(new Customer("C2", "Bob"));
+        second.addItem(new Album("Abbey Road", 30.0, "The Beatles", 1969, "album"));
+        storage.saveOrders(List.of(first, second));
+
+        MappedOrderStore store = storage.openMappedOrders();
+        assertEquals(2, store.size());
+        MappedOrderStore.OrderCursor cursor = store.cursor().moveTo(0);
+        assertEquals("clerk", cursor.processedBy());
+        assertEquals(2, cursor.lineCount());
+        assertEquals("Ukulele", cursor.lineName(1));
+        assertEquals(105.0, cursor.totalAmount());
+
+        OrderService orderService = new OrderService(storage, false, 1);
+        InventoryService inventoryService = new InventoryService(storage);
+        LocalDateTime start = LocalDateTime.now().minusDays(1);
+        LocalDateTime end = LocalDateTime.now().plusDays(1);
+        SalesReport expected = new AnalyticsService(orderService, inventoryService).generateSalesReport(start, end);
+        SalesReport mapped = new AnalyticsService(orderService, inventoryService, store).generateSalesReport(start, end);
+
+        assertEquals(expected.getTotalOrders(), mapped.getTotalOrders());
+        assertEquals(expected.getTotalRevenue(), mapped.getTotalRevenue());
+        assertEquals(expected.getTopSellingItems(), mapped.getTopSellingItems());
+        assertEquals(expected.getRevenueByCategory(), mapped.getRevenueByCategory());
+    }
+
+    @Test
+    void testMappedReportLeavesOrderHistoryUnloaded() throws Exception {
+        FileStorageService storage = new FileStorageService(dataDirectory, 0);
+        Order order = new Order(new Customer("C1", "Ana"));
+        order.addItem(new Album("Abbey Road", 30.0, "The Beatles", 1969, "album"));
+        storage.saveOrders(List.of(order));
+
+        LazyOrderService orderService = new LazyOrderService(() -> new OrderService(storage, false, 1));
+        AnalyticsService analytics = new AnalyticsService(orderService, new InventoryService(storage), storage.openMappedOrders());
+        SalesReport report = analytics.generateSalesReport(LocalDateTime.now().minusDays(1), LocalDateTime.now().plusDays(1));
+
+        assertEquals(1, report.getTotalOrders());
+        assertFalse(orderService.isLoaded(), "Mapped analytics should not deserialize the order history");
+        assertEquals(1, orderService.getAllOrders().size());
+        assertTrue(orderService.isLoaded());
+    }
+}
@@ -0,0 +1,75 @@
+package com.musicshop.services;
+
+import com.musicshop.models.music.Album;
+import com.musicshop.models.sales.Order;
+import com.musicshop.models.user.Customer;
+import com.musicshop.models.user.User;
+import com.musicshop.models.user.UserRole;
+import com.musicshop.services.order.OrderService;
+import com.musicshop.services.storage.FileStorageService;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class OrderJournalTest {
+
+    @TempDir
+    Path dataDirectory;
+
+    private Order newOrder(String customerName) {
+        Order order = new Order(new Customer("C-" + customerName, customerName));
+        order.addItem(new Album("Abbey Road", 30.0, "The Beatles", 1969, "album"));
+        return order;
+    }
+
+    @Test
+    void testJournaledOrdersAreReplayedOnStartup() {
+        User employee = new User("clerk", "secret", UserRole.SHOP_EMPLOYEE);
+        OrderService orderService = new OrderService(new FileStorageService(dataDirectory), true, 100);
+        orderService.processOrder(newOrder("Ana"), employee);
+        orderService.processOrder(newOrder("Bob"), employee);
+
+        assertFalse(Files.exists(dataDirectory.resolve("orders.json")), "Snapshot should not be rewritten per sale");
+        assertTrue(Files.exists(dataDirectory.resolve("orders.journal")));
+
+        List<Order> reloaded = new FileStorageService(dataDirectory).loadOrders();
+        assertEquals(2, reloaded.size());
+        assertEquals("Ana", reloaded.get(0).getCustomer().getName());
+    }
+
+    @Test
+    void testCheckpointFoldsJournalIntoSnapshot() {
+        User employee = new User("clerk", "secret", UserRole.SHOP_EMPLOYEE);
+        OrderService orderService = new OrderService(new FileStorageService(dataDirectory), true, 2);
+        orderService.processOrder(newOrder("Ana"), employee);
+        orderService.processOrder(newOrder("Bob"), employee);
+        orderService.processOrder(newOrder("Cid"), employee);
+
+        FileStorageService reloaded = new FileStorageService(dataDirectory);
+        assertEquals(3, reloaded.loadOrders().size());
+        assertEquals(1, reloaded.getJournaledOrderCount(), "Only the tail after the checkpoint stays journaled");
+    }
+
+    @Test
+    void testAppendAfterTornRecordStartsOnANewLine() throws Exception {
+        User employee = new User("clerk", "secret", UserRole.SHOP_EMPLOYEE);
+        new OrderService(new FileStorageService(dataDirectory), true, 100).processOrder(newOrder("Ana"), employee);
+
+        // simulate a crash halfway through the next append
+        Path journal = dataDirectory.resolve("orders.journal");
+        Files.writeString(journal, "{\"id\":\"ORD-torn\",\"cust", StandardOpenOption.APPEND);
+
+        new OrderService(new FileStorageService(dataDirectory), true, 100).processOrder(newOrder("Bob"), employee);
+
+        List<Order> reloaded = new FileStorageService(dataDirectory).loadOrders();
+        assertEquals(2, reloaded.size());
+        assertEquals("Bob", reloaded.get(1).getCustomer().getName());
+        assertTrue(Files.readString(journal).endsWith("}\n"));
+    }
+}
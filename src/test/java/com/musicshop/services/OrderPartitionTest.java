@@ -0,0 +1,112 @@
+package com.musicshop.services;
+
+import com.musicshop.models.music.Album;
+import com.musicshop.models.sales.Order;
+import com.musicshop.models.user.Customer;
+import com.musicshop.models.user.User;
+import com.musicshop.models.user.UserRole;
+import com.musicshop.services.order.OrderService;
+import com.musicshop.services.storage.FileStorageService;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class OrderPartitionTest {
+
+    @TempDir
+    Path dataDirectory;
+
+    private Order orderOn(LocalDateTime date) {
+        Order order = new Order(new Customer("C1", "Ana"));
+        order.addItem(new Album("Abbey Road", 30.0, "The Beatles", 1969, "album"));
+        order.setOrderDate(date);
+        return order;
+    }
+
+    @Test
+    void testSnapshotIsSplitIntoMonthlyPartitions() {
+        FileStorageService storage = new FileStorageService(dataDirectory, 0);
+        List<Order> history = new ArrayList<>();
+        history.add(orderOn(LocalDateTime.of(2024, 9, 3, 10, 0)));
+        history.add(orderOn(LocalDateTime.of(2024, 10, 14, 10, 0)));
+        history.add(orderOn(LocalDateTime.of(2024, 10, 20, 10, 0)));
+        history.add(orderOn(LocalDateTime.of(2024, 11, 1, 10, 0)));
+        storage.saveOrders(history);
+
+        OrderService orderService = new OrderService(storage, true, 100, true, 1);
+        assertTrue(Files.exists(dataDirectory.resolve("orders/manifest.json")));
+        assertTrue(Files.exists(dataDirectory.resolve("orders/2024-10.json")));
+
+        List<Order> october = orderService.getOrdersBetween(
+                LocalDateTime.of(2024, 10, 1, 0, 0), LocalDateTime.of(2024, 10, 31, 23, 59));
+        assertEquals(2, october.size());
+        assertEquals(4, orderService.getAllOrders().size());
+        assertTrue(orderService.findOrderById(history.get(0).getOrderId()).isPresent());
+    }
+
+    @Test
+    void testNewOrdersSurviveRestart() {
+        FileStorageService storage = new FileStorageService(dataDirectory, 0);
+        User employee = new User("clerk", "secret", UserRole.SHOP_EMPLOYEE);
+        OrderService orderService = new OrderService(storage, true, 2, true, 10);
+        orderService.processOrder(new Order(new Customer("C1", "Ana")), employee);
+        orderService.processOrder(new Order(new Customer("C2", "Bob")), employee);
+        orderService.processOrder(new Order(new Customer("C3", "Cid")), employee);
+
+        OrderService restarted = new OrderService(new FileStorageService(dataDirectory, 0), true, 2, true, 10);
+        assertEquals(3, restarted.getAllOrders().size(), "Partitions plus journal tail should hold every order");
+    }
+
+    @Test
+    void testFindByIdLoadsAtMostOnePartition() {
+        List<Order> history = new ArrayList<>();
+        for (int month = 1; month <= 6; month++) {
+            Order order = orderOn(LocalDateTime.of(2024, month, 10, 10, 0));
+            order.setOrderId("ORD-2024-" + month); // fixed ids keep the id filters' answers deterministic
+            history.add(order);
+        }
+        new FileStorageService(dataDirectory, 0).saveOrders(history);
+        new OrderService(new FileStorageService(dataDirectory, 0), true, 100, true, 0); // migrates
+
+        List<YearMonth> loaded = new ArrayList<>();
+        FileStorageService storage = new FileStorageService(dataDirectory, 0) {
+            @Override
+            public List<Order> loadOrderPartition(YearMonth month) {
+                loaded.add(month);
+                return super.loadOrderPartition(month);
+            }
+        };
+        OrderService orderService = new OrderService(storage, true, 100, true, 0);
+        loaded.clear();
+
+        assertTrue(orderService.findOrderById(history.get(2).getOrderId()).isPresent());
+        assertEquals(List.of(YearMonth.of(2024, 3)), loaded);
+        loaded.clear();
+        assertTrue(orderService.findOrderById("no-such-order").isEmpty());
+        assertTrue(loaded.isEmpty(), "An unknown id should not read any partition");
+    }
+
+    @Test
+    void testIdFilterIsRebuiltForOlderPartitions() throws Exception {
+        List<Order> history = List.of(orderOn(LocalDateTime.of(2024, 1, 5, 10, 0)), orderOn(LocalDateTime.of(2024, 2, 5, 10, 0)));
+        new FileStorageService(dataDirectory, 0).saveOrders(history);
+        new OrderService(new FileStorageService(dataDirectory, 0), true, 100, true, 0);
+        Path filter = dataDirectory.resolve("orders/2024-01.ids");
+        assertTrue(Files.exists(filter));
+        Files.delete(filter);
+        assertFalse(Files.readString(dataDirectory.resolve("orders/manifest.json")).contains(history.get(0).getOrderId()),
+                "The manifest only keeps per-month counts");
+
+        OrderService restarted = new OrderService(new FileStorageService(dataDirectory, 0), true, 100, true, 0);
+        assertTrue(restarted.findOrderById(history.get(0).getOrderId()).isPresent());
+        assertTrue(Files.exists(filter), "The missing filter should be rebuilt from its partition");
+    }
+}
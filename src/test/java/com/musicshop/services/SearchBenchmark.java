@@ -0,0 +1,87 @@
+package com.musicshop.services;
+
+import com.musicshop.models.music.Album;
+import com.musicshop.models.music.Instrument;
+import com.musicshop.models.music.MusicItem;
+import com.musicshop.models.music.SearchCriteria;
+import com.musicshop.services.inventory.InventoryService;
+import com.musicshop.services.storage.FileStorageService;
+import org.openjdk.jmh.annotations.*;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+// Compares the compiled search predicates with the per-item reflection and lowercasing
+// searchItems used before. The criteria force a full scan on both sides, so only the
+// predicate cost differs.
+// Run: mvn test-compile, then java -cp target/test-classes:target/classes:<test classpath> org.openjdk.jmh.Main SearchBenchmark
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SearchBenchmark {
+
+    @Param("100000")
+    int items;
+
+    private InventoryService inventoryService;
+    private InventoryService cachingInventoryService;
+    private SearchCriteria criteria;
+
+    @Setup
+    public void setUp() throws Exception {
+        Path dataDirectory = Files.createTempDirectory("search-benchmark");
+        Random random = new Random(7);
+        List<MusicItem> catalog = new ArrayList<>();
+        for (int i = 0; i < items; i++) {
+            catalog.add(i % 3 == 0
+                    ? new Instrument("Guitar " + i, 50 + random.nextInt(2000), "instrument", random.nextInt(5), null)
+                    : new Album("Album " + i, 5 + random.nextInt(60), "Artist " + random.nextInt(3000), 2000,
+                            "album", random.nextInt(5), null));
+        }
+        FileStorageService storage = new FileStorageService(dataDirectory, 0);
+        storage.saveItems(catalog);
+        inventoryService = new InventoryService(storage, 0); // no search cache, every call runs the search
+        cachingInventoryService = new InventoryService(storage);
+        // a one-letter keyword is too short for the trigram index
+        criteria = new SearchCriteria("u", null, null, "Album", true);
+    }
+
+    @Benchmark
+    public List<MusicItem> reflectionPredicates() {
+        return inventoryService.getItems().stream()
+            .filter(item -> matchesCriteria(item, criteria))
+            .collect(Collectors.toList());
+    }
+
+    @Benchmark
+    public List<MusicItem> compiledPredicates() {
+        return inventoryService.searchItems(criteria);
+    }
+
+    // the same search answered from the search cache
+    @Benchmark
+    public List<MusicItem> cachedSearch() {
+        return cachingInventoryService.searchItems(criteria);
+    }
+
+    // the previous InventoryService.matchesCriteria
+    private static boolean matchesCriteria(MusicItem item, SearchCriteria criteria) {
+        return (criteria.getKeyword() == null ||
+                item.getName().toLowerCase().contains(criteria.getKeyword().toLowerCase())) &&
+               (criteria.getMinPrice() == null || item.getPrice() >= criteria.getMinPrice()) &&
+               (criteria.getMaxPrice() == null || item.getPrice() <= criteria.getMaxPrice()) &&
+               (criteria.getItemType() == null ||
+                item.getClass().getSimpleName().equalsIgnoreCase(criteria.getItemType())) &&
+               (criteria.getInStock() == null ||
+                (criteria.getInStock() && item.getQuantity() > 0) ||
+                (!criteria.getInStock() && item.getQuantity() == 0));
+    }
+}
@@ -0,0 +1,69 @@
+package com.musicshop.services;
+
+import com.musicshop.models.music.Album;
+import com.musicshop.models.music.Instrument;
+import com.musicshop.models.sales.Order;
+import com.musicshop.models.user.Customer;
+import com.musicshop.services.storage.FileStorageService;
+import com.musicshop.services.storage.StorageFormat;
+import org.openjdk.jmh.annotations.*;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+// Saves and loads the order history in the JSON and the binary snapshot format,
+// 4 cart lines per order. The size of each snapshot is printed during setup.
+// Run: mvn test-compile, then java -cp target/test-classes:target/classes:<test classpath> org.openjdk.jmh.Main SnapshotFormatBenchmark
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class SnapshotFormatBenchmark {
+
+    @Param("50000")
+    int orders;
+
+    @Param({"JSON", "BINARY"})
+    StorageFormat format;
+
+    private FileStorageService storage;
+    private List<Order> history;
+
+    @Setup
+    public void setUp() throws Exception {
+        Path dataDirectory = Files.createTempDirectory("snapshot-benchmark");
+        history = new ArrayList<>(orders);
+        for (int i = 0; i < orders; i++) {
+            Order order = new Order(new Customer("C" + i % 500, "Customer " + i % 500));
+            order.addItem(new Album("Album " + i % 2000, 20.0, "Artist " + i % 300, 1990, "album"));
+            order.addItem(new Album("Album " + (i + 7) % 2000, 25.0, "Artist " + (i + 7) % 300, 2001, "album"));
+            order.addItem(new Instrument("Guitar " + i % 100, 450.0, "instrument"));
+            order.addItem(new Instrument("Pick " + i % 10, 0.5, "instrument"));
+            order.setProcessor("u-" + i % 5, "clerk " + i % 5);
+            history.add(order);
+        }
+        storage = new FileStorageService(dataDirectory, 0, format);
+        storage.saveOrders(history);
+        try (Stream<Path> files = Files.list(dataDirectory)) {
+            long bytes = files.filter(file -> file.getFileName().toString().startsWith("orders."))
+                    .mapToLong(file -> file.toFile().length()).sum();
+            System.out.printf("%n%s snapshot of %d orders: %.1f MB%n", format, orders, bytes / 1e6);
+        }
+    }
+
+    @Benchmark
+    public void save() {
+        storage.saveOrders(history);
+    }
+
+    @Benchmark
+    public List<Order> load() {
+        return storage.loadOrders();
+    }
+}
@@ -0,0 +1,56 @@
+package com.musicshop.services;
+
+import com.musicshop.models.music.Album;
+import com.musicshop.models.music.MusicItem;
+import com.musicshop.models.sales.Order;
+import com.musicshop.models.user.Customer;
+import com.musicshop.services.storage.FileStorageService;
+import com.musicshop.services.storage.StorageFormat;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class StringPoolTest {
+
+    @TempDir
+    Path dataDirectory;
+
+    @Test
+    void testJsonLoadSharesRepeatedStrings() {
+        assertPooled(new FileStorageService(dataDirectory, 0, StorageFormat.JSON));
+    }
+
+    @Test
+    void testBinaryLoadSharesRepeatedStrings() {
+        assertPooled(new FileStorageService(dataDirectory, 0, StorageFormat.BINARY));
+    }
+
+    private void assertPooled(FileStorageService storage) {
+        List<Order> orders = new ArrayList<>();
+        for (int i = 0; i < 2; i++) {
+            Order order = new Order(new Customer("C1", new String("Ana")));
+            order.addItem(new Album("Album " + i, 20.0, new String("Yung Lean"), 2013, new String("album")));
+            order.setProcessor("u-1", new String("clerk"));
+            orders.add(order);
+        }
+        storage.saveOrders(orders);
+        storage.saveItems(List.of(
+                new Album("Lavender", 70.0, new String("Yung Lean"), 2013, "album"),
+                new Album("Unknown Death", 40.0, new String("Yung Lean"), 2013, "album")));
+
+        List<Order> loaded = storage.loadOrders();
+        assertSame(loaded.get(0).getProcessedBy(), loaded.get(1).getProcessedBy());
+        assertSame(loaded.get(0).getCustomer().getName(), loaded.get(1).getCustomer().getName());
+        assertSame(loaded.get(0).getCartLines().get(0).getType(), loaded.get(1).getCartLines().get(0).getType());
+        assertNotSame(loaded.get(0).getOrderId(), loaded.get(1).getOrderId());
+
+        List<MusicItem> items = storage.loadItems();
+        assertSame(((Album) items.get(0)).getArtist(), ((Album) items.get(1)).getArtist());
+        assertEquals("Yung Lean", ((Album) items.get(0)).getArtist());
+    }
+}